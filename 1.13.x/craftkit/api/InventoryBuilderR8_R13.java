@@ -1,23 +1,38 @@
 package fr.arnaud.craftkit.api;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Base class to build GUI menus easily.
@@ -25,19 +40,52 @@ import java.util.function.Consumer;
  */
 public abstract class InventoryBuilder implements Listener {
 
+    private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), task -> {
+                Thread thread = new Thread(task, "CraftKit-Menu-Worker-" + WORKER_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private final Player player;
-    private final String title;
+    private String title;
     private final Player owner;
     private final int size;
-    private final Map<Player, Inventory> inventories = new HashMap<>();
+    private final Map<UUID, Inventory> inventories = new HashMap<>();
     private final Map<Integer, Consumer<InventoryClickEvent>> actions = new HashMap<>();
-    private final List<BukkitTask> animations = new ArrayList<>();
+    private final List<AnimationTicker.Handle> animations = new ArrayList<>();
+    private final ItemStack[] rendered;
+    // Viewers waiting for an asynchronous action, kept per viewer so broadcast menus don't block each other
+    private final Set<UUID> actionsInFlight = ConcurrentHashMap.newKeySet();
+
+    private ItemStack[] renderTarget;
+    // Slots placed during an off-screen render, only tracked by refreshDynamic
+    private boolean[] renderTouched;
+    private VirtualMenu virtualMenu;
+    private ClickLimiter clickLimiter;
+    private boolean retained;
+    private boolean listening;
+    private InventoryBuilder parent;
+    private boolean navigating;
+    private boolean refreshQueued;
+    private boolean retitled;
+
+    private ItemStack loadingItem;
+    private int session;
+    // Last results of createItemsAsync, kept by refresh, and the slots still showing the loading item
+    private ItemStack[] asyncItems;
+    private boolean[] loadingSlots;
+
+    private Inventory prewarmed;
+    private CompletableFuture<ItemStack[]> prewarmedItems;
 
     public InventoryBuilder(Player player, String title, Player owner, int size) {
         this.player = player;
         this.title = title;
         this.owner = owner;
         this.size = size;
+        this.rendered = new ItemStack[size];
     }
 
     /**
@@ -46,14 +94,350 @@ public abstract class InventoryBuilder implements Listener {
     public abstract void createItems(Player player, Inventory inventory);
 
     /**
-     * Opens the GUI for the player.
+     * Places the items that change while the menu is retained (balances, timers, stock, ...).
+     * Only called by {@link #refreshDynamic()}, which runs on {@link #reopen()}: items placed here with
+     * addItem replace the ones from {@link #createItems}, every other slot is left as it is.
+     * Defaults to nothing, a reopened menu is then shown exactly as it was left.
+     */
+    protected void createDynamicItems(Player player, Inventory inventory) {
+    }
+
+    /**
+     * Builds items off the main thread, override it for menus backed by slow lookups (database, web, ...).
+     * Non-null entries are applied over the items of {@link #createItems} in a single setContents.
+     * Returning null (the default) keeps the menu fully synchronous.
+     */
+    public CompletableFuture<ItemStack[]> createItemsAsync(Player player) {
+        return null;
+    }
+
+    /**
+     * Runs a supplier on the shared menu worker pool, meant to be used from {@link #createItemsAsync}.
+     */
+    protected CompletableFuture<ItemStack[]> supplyAsync(Supplier<ItemStack[]> supplier) {
+        return CompletableFuture.supplyAsync(supplier, WORKERS);
+    }
+
+    /**
+     * Sets the placeholder shown in empty slots while asynchronous items are loading.
+     */
+    public void setLoadingItem(ItemStack loadingItem) {
+        this.loadingItem = loadingItem;
+    }
+
+    /**
+     * Opens the GUI for the player. The render goes through the {@link RenderQueue},
+     * so a burst of opens is spread over several ticks. A menu rendered ahead of time
+     * with {@link #prewarm()} is shown immediately instead. Can be called from any thread.
      */
     public void open() {
+        if (toMainThread(this::open)) return;
+
+        Inventory warm = prewarmed;
+        if (warm != null) {
+            CompletableFuture<ItemStack[]> items = prewarmedItems;
+            prewarmed = null;
+            prewarmedItems = null;
+
+            inventories.put(player.getUniqueId(), warm);
+            loadItemsAsync(warm, items);
+            show(warm);
+            return;
+        }
+
+        RenderQueue.run(player.getUniqueId(), () -> {
+            clearPrewarm();
+            Inventory inventory = Bukkit.createInventory(owner, size, title);
+            retitled = false;
+            inventories.put(player.getUniqueId(), inventory);
+            Arrays.fill(rendered, null);
+            asyncItems = null;
+            loadingSlots = null;
+            createItems(player, inventory);
+            loadItemsAsync(inventory, createItemsAsync(player));
+            player.openInventory(inventory);
+            listen();
+        });
+    }
+
+    /**
+     * Opens the same menu to many players at once (event lobbies, votes, ...). createItems runs a
+     * single time for the menu's own player, so the contents must not depend on the viewer, and
+     * the resulting ItemStacks are shared by every per-player inventory. Each open goes through the
+     * {@link RenderQueue}, so a large lobby is spread over several ticks.
+     * Item actions, animations and refreshes apply to every viewer, and the menu is released once
+     * the last viewer closed it. {@link #createItemsAsync} is not used by broadcast menus.
+     */
+    public void openAll(Collection<? extends Player> viewers) {
+        if (toMainThread(() -> openAll(viewers))) return;
+
+        clearPrewarm();
+        Inventory template = Bukkit.createInventory(owner, size, title);
+        retitled = false;
+        inventories.put(player.getUniqueId(), template);
+        Arrays.fill(rendered, null);
+        try {
+            createItems(player, template);
+        } finally {
+            inventories.remove(player.getUniqueId());
+        }
+        ItemStack[] contents = template.getContents();
+
+        for (Player viewer : viewers) {
+            RenderQueue.submit(viewer.getUniqueId(), () -> {
+                if (!viewer.isOnline()) return;
+
+                Inventory inventory = Bukkit.createInventory(owner, size, title);
+                inventory.setContents(contents);
+                inventories.put(viewer.getUniqueId(), inventory);
+                viewer.openInventory(inventory);
+                listen();
+            });
+        }
+    }
+
+    /**
+     * Renders the menu ahead of time, for example on join or when the player holds the menu item.
+     * createItems runs on a later tick through the {@link RenderQueue} and {@link #createItemsAsync}
+     * starts right away, so the next {@link #open()} shows the result without any render or tick of delay.
+     */
+    public void prewarm() {
+        if (toMainThread(this::prewarm)) return;
+
+        RenderQueue.submit(player.getUniqueId(), this::renderPrewarm);
+    }
+
+    /**
+     * The {@link RenderQueue} and the menu state are main thread only, calls from another
+     * thread (e.g. a completed future) are moved to the next tick.
+     *
+     * @return true if the call was rescheduled and must not go on
+     */
+    private boolean toMainThread(Runnable call) {
+        if (Bukkit.isPrimaryThread()) return false;
+
+        Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(this.getClass()), call);
+        return true;
+    }
+
+    public boolean isPrewarmed() {
+        return prewarmed != null;
+    }
+
+    private void renderPrewarm() {
+        if (getInventory(player) != null || virtualMenu != null) return;
+
+        clearPrewarm();
         Inventory inventory = Bukkit.createInventory(owner, size, title);
-        inventories.put(player, inventory);
-        createItems(player, inventory);
+        retitled = false;
+        // Registered while rendering only, so addItem and the animation helpers find it
+        inventories.put(player.getUniqueId(), inventory);
+        Arrays.fill(rendered, null);
+        asyncItems = null;
+        loadingSlots = null;
+        try {
+            createItems(player, inventory);
+        } finally {
+            inventories.remove(player.getUniqueId());
+        }
+
+        prewarmed = inventory;
+        prewarmedItems = createItemsAsync(player);
+    }
+
+    /**
+     * Drops a prewarmed render that was not consumed, along with its actions and animations.
+     */
+    private void clearPrewarm() {
+        if (prewarmed == null) return;
+        prewarmed = null;
+        prewarmedItems = null;
+        actions.clear();
+        cancelAnimations();
+    }
+
+    /**
+     * Shows the menu again. If the menu was retained after its last close, its inventory is
+     * reused and only {@link #onReopen} runs instead of a full createItems.
+     * {@link #createItemsAsync} runs again, the previous asynchronous items stay shown until it completes.
+     */
+    public void reopen() {
+        Inventory inventory = getInventory(player);
+        if (inventory == null) {
+            open();
+            return;
+        }
+
+        clearLoadingSlots(inventory);
+        onReopen(player, inventory);
+        loadItemsAsync(inventory, createItemsAsync(player));
+        show(inventory);
+    }
+
+    /**
+     * Updates a retained inventory before it is shown again. Defaults to {@link #refreshDynamic()},
+     * override it and call {@link #refresh()} instead for a full createItems render.
+     */
+    protected void onReopen(Player player, Inventory inventory) {
+        refreshDynamic();
+    }
+
+    /**
+     * When retained, closing the menu keeps its inventory, items and actions so it can be
+     * reopened cheaply with {@link #reopen()}. Call {@link #reset()} to release it.
+     */
+    public void setRetained(boolean retained) {
+        this.retained = retained;
+    }
+
+    public boolean isRetained() {
+        return retained;
+    }
+
+    /**
+     * Opens a child menu (category → subcategory → item). This menu keeps its inventory, items,
+     * actions and state such as the current page, and stays registered during the transition,
+     * so {@link #back()} on the child shows it again without calling createItems.
+     */
+    public void openChild(InventoryBuilder child) {
+        navigating = true;
+        child.parent = this;
+        child.open();
+    }
+
+    /**
+     * Goes back to the parent menu as it was left, or closes the menu if it has no parent.
+     */
+    public void back() {
+        InventoryBuilder target = parent;
+        if (target == null) {
+            close();
+            return;
+        }
+
+        parent = null;
+        Inventory inventory = target.getInventory(player);
+        if (inventory != null) {
+            target.show(inventory);
+        } else {
+            target.open();
+        }
+        target.navigating = false;
+
+        release();
+    }
+
+    public InventoryBuilder getParent() {
+        return parent;
+    }
+
+    /**
+     * Changes the title of the menu without reopening its inventory: the open-window packet is
+     * re-sent with the existing container id, followed by the window items only.
+     * The cursor stays in place and no slot flickers. Retained menus show the new title when reopened.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+
+        if (virtualMenu != null) {
+            virtualMenu.setTitle(title);
+            return;
+        }
+
+        if (inventories.isEmpty() && prewarmed == null) return;
+
+        // The server-side inventories keep the title they were created with
+        retitled = true;
+        for (Map.Entry<UUID, Inventory> entry : inventories.entrySet()) {
+            Player viewer = Bukkit.getPlayer(entry.getKey());
+            if (viewer != null && isViewing(viewer, entry.getValue())) VirtualMenu.retitle(viewer, title, size);
+        }
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Shows an inventory that was already rendered, with the latest title.
+     */
+    private void show(Inventory inventory) {
         player.openInventory(inventory);
+        if (retitled) VirtualMenu.retitle(player, title, size);
+        listen();
+    }
+
+    private static boolean isViewing(Player viewer, Inventory inventory) {
+        return viewer.getOpenInventory().getTopInventory().equals(inventory);
+    }
+
+    private void listen() {
+        if (listening) return;
         Bukkit.getPluginManager().registerEvents(this, JavaPlugin.getProvidingPlugin(this.getClass()));
+        MenuSessions.register(player.getUniqueId(), this);
+        listening = true;
+    }
+
+    private void unlisten() {
+        HandlerList.unregisterAll(this);
+        MenuSessions.unregister(player.getUniqueId(), this);
+        listening = false;
+    }
+
+    /**
+     * Shows the loading placeholder and applies the asynchronous items once ready.
+     * Results are dropped if the player closed or reopened the menu in the meantime.
+     */
+    private void loadItemsAsync(Inventory inventory, CompletableFuture<ItemStack[]> future) {
+        int current = ++session;
+        if (future == null) return;
+
+        boolean[] placeholders = new boolean[size];
+        if (loadingItem != null) {
+            for (int slot = 0; slot < size; slot++) {
+                if (inventory.getItem(slot) != null) continue;
+                inventory.setItem(slot, loadingItem);
+                rendered[slot] = loadingItem;
+                placeholders[slot] = true;
+            }
+            loadingSlots = placeholders;
+        }
+
+        future.whenComplete((items, error) -> Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(this.getClass()), () -> {
+            // A retained menu keeps its inventory while closed, the results are still applied to it
+            if (current != session || getInventory(player) != inventory) return;
+            if (error != null) error.printStackTrace();
+
+            if (error != null || items == null) {
+                clearLoadingSlots(inventory);
+                return;
+            }
+
+            ItemStack[] contents = inventory.getContents();
+            for (int slot = 0; slot < contents.length; slot++) {
+                if (slot < items.length && items[slot] != null) contents[slot] = items[slot];
+                else if (placeholders[slot]) contents[slot] = null;
+            }
+            inventory.setContents(contents);
+            System.arraycopy(contents, 0, rendered, 0, Math.min(contents.length, rendered.length));
+            asyncItems = Arrays.copyOf(items, size);
+            loadingSlots = null;
+        }));
+    }
+
+    /**
+     * Empties the slots still showing the loading item of a load that will not complete.
+     */
+    private void clearLoadingSlots(Inventory inventory) {
+        boolean[] placeholders = loadingSlots;
+        loadingSlots = null;
+        if (placeholders == null) return;
+
+        for (int slot = 0; slot < placeholders.length; slot++) {
+            if (!placeholders[slot] || !ItemInterner.isSame(inventory.getItem(slot), loadingItem)) continue;
+            inventory.setItem(slot, null);
+            rendered[slot] = null;
+        }
     }
 
     /**
@@ -68,70 +452,394 @@ public abstract class InventoryBuilder implements Listener {
      */
     public void addItem(int slot, ItemStack item, Consumer<InventoryClickEvent> action) {
         actions.put(slot, action);
-        getInventory(player).setItem(slot, item);
+
+        if (renderTarget != null) {
+            renderTarget[slot] = item;
+            if (renderTouched != null) renderTouched[slot] = true;
+            return;
+        }
+
+        writeSlot(slot, item);
+        rendered[slot] = item;
+    }
+
+    /**
+     * Opens the GUI as a packet-only {@link VirtualMenu}, without any server-side Inventory.
+     * Meant for cosmetic or read-only menus: createItems receives a null inventory, and since no
+     * InventoryClickEvent exists, clicks are reported to {@link #onVirtualClick} instead of the item actions.
+     * Must be called from the main thread.
+     */
+    public void openVirtual() {
+        ItemStack[] contents = new ItemStack[size];
+        Arrays.fill(rendered, null);
+
+        renderTarget = contents;
+        try {
+            createItems(player, null);
+        } finally {
+            renderTarget = null;
+        }
+        System.arraycopy(contents, 0, rendered, 0, size);
+
+        virtualMenu = new VirtualMenu(player, title, size, this::onVirtualClick, this::reset);
+        virtualMenu.setContents(contents);
+        virtualMenu.open();
+    }
+
+    /**
+     * Called on the main thread when a slot of a virtual menu is clicked.
+     */
+    protected void onVirtualClick(int slot, int button) {
+    }
+
+    public boolean isVirtual() {
+        return virtualMenu != null;
+    }
+
+    private void writeSlot(int slot, ItemStack item) {
+        if (virtualMenu != null) virtualMenu.setItem(slot, item);
+        else for (Inventory inventory : inventories.values()) inventory.setItem(slot, item);
+    }
+
+    /**
+     * Add an item whose action runs asynchronously. Until the returned future completes,
+     * further clicks of the same viewer on any action of this menu are dropped, so an
+     * auto-clicker can't trigger the same purchase twice. Other viewers of a broadcast menu are not affected.
+     */
+    public void addAsyncItem(int slot, ItemStack item, Function<InventoryClickEvent, CompletableFuture<?>> action) {
+        addItem(slot, item, event -> {
+            UUID clicker = event.getWhoClicked().getUniqueId();
+            if (!actionsInFlight.add(clicker)) return;
+
+            CompletableFuture<?> future;
+            try {
+                future = action.apply(event);
+            } catch (RuntimeException e) {
+                actionsInFlight.remove(clicker);
+                throw e;
+            }
+
+            if (future == null) actionsInFlight.remove(clicker);
+            else future.whenComplete((result, error) -> actionsInFlight.remove(clicker));
+        });
+    }
+
+    /**
+     * Sets the limiter applied to clicks on item actions. A limiter can be shared by every
+     * instance of a menu, its buckets are kept per player.
+     */
+    public void setClickLimiter(ClickLimiter clickLimiter) {
+        this.clickLimiter = clickLimiter;
+    }
+
+    /**
+     * Re-runs createItems into an off-screen array and only writes the slots that changed.
+     * Live menus (timers, stock counters, ...) then send a few slot updates instead of a full resync.
+     * Items must be placed with addItem for the diff to see them. Slots filled by {@link #createItemsAsync}
+     * keep their last result (or their loading item), {@link #reopen()} is what loads them again.
+     */
+    public void refresh() {
+        if (inventories.isEmpty() && virtualMenu == null) return;
+        Inventory inventory = getInventory(player);
+        // Broadcast menus may have lost their own player while other viewers remain
+        if (inventory == null && virtualMenu == null) inventory = inventories.values().iterator().next();
+
+        ItemStack[] next = new ItemStack[size];
+        actions.clear();
+        cancelAnimations();
+        renderTarget = next;
+        try {
+            createItems(player, inventory);
+        } finally {
+            renderTarget = null;
+        }
+
+        ItemStack[] loaded = asyncItems;
+        boolean[] loading = loadingSlots;
+        for (int slot = 0; slot < size; slot++) {
+            if (loaded != null && loaded[slot] != null) next[slot] = loaded[slot];
+            else if (loading != null && loading[slot] && next[slot] == null) next[slot] = loadingItem;
+        }
+
+        for (int slot = 0; slot < size; slot++) {
+            if (ItemInterner.isSame(rendered[slot], next[slot])) continue;
+            writeSlot(slot, next[slot]);
+            rendered[slot] = next[slot];
+        }
+    }
+
+    /**
+     * Re-runs {@link #createDynamicItems} only and writes the slots it placed that changed.
+     * Actions of those slots are replaced, the other slots keep their items, actions and animations.
+     */
+    public void refreshDynamic() {
+        if (inventories.isEmpty() && virtualMenu == null) return;
+        Inventory inventory = getInventory(player);
+        if (inventory == null && virtualMenu == null) inventory = inventories.values().iterator().next();
+
+        ItemStack[] next = new ItemStack[size];
+        boolean[] touched = new boolean[size];
+        renderTarget = next;
+        renderTouched = touched;
+        try {
+            createDynamicItems(player, inventory);
+        } finally {
+            renderTarget = null;
+            renderTouched = null;
+        }
+
+        for (int slot = 0; slot < size; slot++) {
+            if (!touched[slot] || ItemInterner.isSame(rendered[slot], next[slot])) continue;
+            writeSlot(slot, next[slot]);
+            rendered[slot] = next[slot];
+        }
+    }
+
+    /**
+     * Queues a {@link #refresh()} on the {@link RenderQueue}, ahead of pending menu opens.
+     * Several requests made before it runs only refresh once.
+     */
+    public void scheduleRefresh() {
+        if (refreshQueued) return;
+        refreshQueued = true;
+
+        RenderQueue.submitPriority(() -> {
+            refreshQueued = false;
+            refresh();
+        });
     }
 
     @EventHandler
     public void onClick(InventoryClickEvent event) {
         Player clicker = (Player) event.getWhoClicked();
-        Inventory inv = inventories.get(clicker);
+        Inventory inv = inventories.get(clicker.getUniqueId());
 
         if (inv == null || !event.getInventory().equals(inv)) return;
 
         int slot = event.getRawSlot();
         Consumer<InventoryClickEvent> action = actions.get(slot);
-        if (action != null) action.accept(event);
+        if (action != null && allowClick(clicker)) action.accept(event);
 
         event.setCancelled(true);
     }
 
+    private boolean allowClick(Player clicker) {
+        if (actionsInFlight.contains(clicker.getUniqueId())) {
+            if (clickLimiter != null) clickLimiter.recordDropped();
+            return false;
+        }
+        return clickLimiter == null || clickLimiter.tryAcquire(clicker.getUniqueId());
+    }
+
     @EventHandler
     public void onClose(InventoryCloseEvent event) {
-        if (event.getInventory().equals(getInventory(player))) reset();
+        UUID viewer = event.getPlayer().getUniqueId();
+        if (!event.getInventory().equals(inventories.get(viewer)) || navigating) return;
+
+        // Broadcast menus are released by their last viewer only
+        if (inventories.size() > 1) {
+            inventories.remove(viewer);
+            return;
+        }
+        release();
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        UUID quitter = event.getPlayer().getUniqueId();
+        if (inventories.size() > 1) inventories.remove(quitter);
+        else if (quitter.equals(player.getUniqueId()) || inventories.containsKey(quitter)) reset();
+    }
+
+    /**
+     * @return true if the menu still listens although none of its viewers has it open anymore:
+     * they went offline or switched to another view without a close event (plugin-forced switch, teleport, ...)
+     */
+    boolean isStale() {
+        if (!listening || navigating) return false;
+
+        for (Map.Entry<UUID, Inventory> entry : inventories.entrySet()) {
+            Player viewer = Bukkit.getPlayer(entry.getKey());
+            if (viewer != null && isViewing(viewer, entry.getValue())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases a stale menu found by {@link MenuSessions}.
+     */
+    void releaseStale() {
+        if (player.isOnline()) release();
+        else reset();
+    }
+
+    /**
+     * Releases the menu after it was closed: retained menus only stop listening.
+     * Parent menus are released too, since closing a child ends the whole navigation.
+     */
+    private void release() {
+        releaseParents();
+        if (retained) {
+            // Only the owner's inventory is reopened, the other viewers of a broadcast are done
+            inventories.keySet().removeIf(viewer -> !viewer.equals(player.getUniqueId()));
+            unlisten();
+        } else {
+            reset();
+        }
+    }
+
+    private void releaseParents() {
+        InventoryBuilder ancestor = parent;
+        parent = null;
+        if (ancestor == null) return;
+
+        ancestor.navigating = false;
+        ancestor.release();
     }
 
     /**
      * Animates an item’s display name by cycling through a list of names.
      */
     public void animateItemName(int slot, List<String> names, long period) {
-        BukkitTask task = new BukkitRunnable() {
+        scheduleFrames(slot, buildFrames(slot, names, ItemMeta::setDisplayName), period);
+    }
+
+    /**
+     * Animates an item’s lore by cycling through a list of lores.
+     */
+    public void animateItemLore(int slot, List<List<String>> lores, long period) {
+        scheduleFrames(slot, buildFrames(slot, lores, ItemMeta::setLore), period);
+    }
+
+    /**
+     * Animates an item’s material by cycling through a list of materials.
+     */
+    public void animateItemType(int slot, List<Material> materials, long period) {
+        ItemStack base = getCurrentItem(slot);
+        if (base == null) return;
+
+        ItemStack[] frames = new ItemStack[materials.size()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = base.clone();
+            frames[i].setType(materials.get(i));
+        }
+        scheduleFrames(slot, frames, period);
+    }
+
+    /**
+     * Makes an item blink by toggling the enchantment glint.
+     */
+    public void animateItemGlint(int slot, long period) {
+        ItemStack base = getCurrentItem(slot);
+        if (base == null) return;
+
+        ItemStack glint = base.clone();
+        ItemMeta meta = glint.getItemMeta();
+        addGlint(meta);
+        glint.setItemMeta(meta);
+
+        scheduleFrames(slot, new ItemStack[]{glint, base.clone()}, period);
+    }
+
+    private static void addGlint(ItemMeta meta) {
+        meta.addEnchant(Enchantment.DURABILITY, 1, true);
+        meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+    }
+
+    /**
+     * Cycles a slot through a list of frames. Each frame is copied once here,
+     * so a tick only swaps the frame reference into the inventory.
+     * Frames are driven by the shared {@link AnimationTicker} and pause while nobody is viewing the menu.
+     */
+    public void animateItem(int slot, List<ItemStack> frames, long period) {
+        ItemStack[] copies = new ItemStack[frames.size()];
+        for (int i = 0; i < copies.length; i++) copies[i] = frames.get(i).clone();
+        scheduleFrames(slot, copies, period);
+    }
+
+    /**
+     * Same as {@link #animateItem}, for frames built by this class that no caller can modify.
+     */
+    private void scheduleFrames(int slot, ItemStack[] frames, long period) {
+        if (frames.length == 0) return;
+
+        AnimationTicker.Handle handle = AnimationTicker.schedule(period, new AnimationTicker.Animation() {
             int index = 0;
 
             @Override
-            public void run() {
-                ItemStack item = getInventory(player).getItem(slot);
-                if (item == null) return;
+            public boolean isPaused() {
+                if (virtualMenu != null) return !virtualMenu.isOpen();
 
-                ItemMeta meta = item.getItemMeta();
-                meta.setDisplayName(names.get(index));
-                item.setItemMeta(meta);
+                for (Inventory inventory : inventories.values()) {
+                    if (!inventory.getViewers().isEmpty()) return false;
+                }
+                return true;
+            }
 
-                index = (index + 1) % names.size();
+            @Override
+            public void tick() {
+                writeSlot(slot, frames[index]);
+                index = (index + 1) % frames.length;
             }
-        }.runTaskTimer(JavaPlugin.getProvidingPlugin(this.getClass()), 0L, period);
+        });
+
+        animations.add(handle);
+    }
+
+    private <T> ItemStack[] buildFrames(int slot, List<T> values, BiConsumer<ItemMeta, T> apply) {
+        ItemStack base = getCurrentItem(slot);
+        if (base == null) return new ItemStack[0];
 
-        animations.add(task);
+        ItemStack[] frames = new ItemStack[values.size()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = base.clone();
+            ItemMeta meta = frames[i].getItemMeta();
+            apply.accept(meta, values.get(i));
+            frames[i].setItemMeta(meta);
+        }
+        return frames;
+    }
+
+    private ItemStack getCurrentItem(int slot) {
+        if (renderTarget != null) return renderTarget[slot];
+        if (virtualMenu != null) return rendered[slot];
+
+        Inventory inventory = getInventory(player);
+        return inventory != null ? inventory.getItem(slot) : null;
+    }
+
+    private void cancelAnimations() {
+        animations.forEach(AnimationTicker.Handle::cancel);
+        animations.clear();
     }
 
     /**
-     * Closes the GUI and cleans up.
+     * Closes the GUI and cleans up, unless the menu is retained.
      */
     public void close() {
-        player.closeInventory();
-        reset();
+        if (virtualMenu != null) virtualMenu.close();
+        else player.closeInventory();
+        if (!retained) reset();
     }
 
     /**
-     * Cancels animations and unregisters the inventory.
+     * Cancels animations and unregisters the inventories of every viewer.
      */
     public void reset() {
-        inventories.remove(player);
-        animations.forEach(BukkitTask::cancel);
-        HandlerList.unregisterAll(this);
+        releaseParents();
+        // A broadcast menu may be released by a viewer other than its owner
+        inventories.clear();
+        virtualMenu = null;
+        prewarmed = null;
+        prewarmedItems = null;
+        asyncItems = null;
+        loadingSlots = null;
+        cancelAnimations();
+        unlisten();
     }
 
     public Inventory getInventory(Player player) {
-        return inventories.get(player);
+        return inventories.get(player.getUniqueId());
     }
 
     public Player getPlayer() {
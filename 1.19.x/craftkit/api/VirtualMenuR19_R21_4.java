@@ -0,0 +1,302 @@
+package fr.arnaud.craftkit.api;
+
+import fr.arnaud.craftkit.util.ReflectionUtils;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import net.minecraft.core.NonNullList;
+import net.minecraft.network.Connection;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundContainerClosePacket;
+import net.minecraft.network.protocol.game.ClientboundContainerSetContentPacket;
+import net.minecraft.network.protocol.game.ClientboundContainerSetSlotPacket;
+import net.minecraft.network.protocol.game.ClientboundOpenScreenPacket;
+import net.minecraft.network.protocol.game.ServerboundContainerClickPacket;
+import net.minecraft.network.protocol.game.ServerboundContainerClosePacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.inventory.MenuType;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.lang.reflect.Field;
+
+/**
+ * Packet-only chest menu: the window, its items and its clicks only exist on the network.
+ * No Bukkit Inventory, InventoryView or server-side container is created, which makes it
+ * very cheap for cosmetic or read-only menus shown to many players.
+ */
+public class VirtualMenu {
+
+    private static final MenuType<?>[] MENU_TYPES = {
+            MenuType.GENERIC_9x1, MenuType.GENERIC_9x2, MenuType.GENERIC_9x3,
+            MenuType.GENERIC_9x4, MenuType.GENERIC_9x5, MenuType.GENERIC_9x6
+    };
+
+    private final Player player;
+    private String title;
+    private final int size;
+    private final ClickHandler clickHandler;
+    private final Runnable closeHandler;
+    private final String handlerName;
+    private final NonNullList<net.minecraft.world.item.ItemStack> items;
+
+    private ServerPlayer serverPlayer;
+    private Channel channel;
+    private int containerId;
+    private volatile boolean open;
+
+    /**
+     * @param player       The player who will see the menu.
+     * @param title        Title of the window.
+     * @param size         Number of slots, a multiple of 9 up to 54.
+     * @param clickHandler Called on the main thread when a slot of the menu is clicked (can be null).
+     * @param closeHandler Called on the main thread when the client closes the menu (can be null).
+     */
+    public VirtualMenu(Player player, String title, int size, ClickHandler clickHandler, Runnable closeHandler) {
+        if (size <= 0 || size > 54 || size % 9 != 0) throw new IllegalArgumentException("Invalid menu size: " + size);
+
+        this.player = player;
+        this.title = title;
+        this.size = size;
+        this.clickHandler = clickHandler;
+        this.closeHandler = closeHandler;
+        this.handlerName = "VirtualMenu_" + player.getUniqueId();
+        this.items = NonNullList.withSize(size, net.minecraft.world.item.ItemStack.EMPTY);
+    }
+
+    /**
+     * Sends the open-window and window-items packets and starts intercepting clicks.
+     */
+    public void open() {
+        try {
+            this.serverPlayer = (ServerPlayer) ReflectionUtils.getHandle(player);
+            this.channel = getChannel(serverPlayer);
+            this.containerId = serverPlayer.nextContainerCounter();
+
+            injectPacketListener();
+            open = true;
+
+            send(openScreenPacket(containerId, title, size));
+            sendContents();
+        } catch (Exception e) {
+            close();
+            throw new RuntimeException("Failed to open VirtualMenu for player " + player.getName(), e);
+        }
+    }
+
+    /**
+     * Sets an item, sending a single set-slot packet if the menu is open.
+     */
+    public void setItem(int slot, ItemStack item) {
+        net.minecraft.world.item.ItemStack nmsItem = toNMS(item);
+        items.set(slot, nmsItem);
+        if (open) send(new ClientboundContainerSetSlotPacket(containerId, 0, slot, nmsItem));
+    }
+
+    /**
+     * Replaces every item, sending a single window-items packet if the menu is open.
+     */
+    public void setContents(ItemStack[] contents) {
+        for (int slot = 0; slot < size; slot++) {
+            items.set(slot, toNMS(slot < contents.length ? contents[slot] : null));
+        }
+        if (open) sendContents();
+    }
+
+    /**
+     * Closes the window on the client and stops intercepting packets.
+     */
+    public void close() {
+        boolean wasOpen = open;
+        // Cleared first, so the write handler does not report our own close packet as a close
+        open = false;
+        if (wasOpen) send(new ClientboundContainerClosePacket(containerId));
+        uninjectPacketListener();
+    }
+
+    /**
+     * Changes the title, re-sending the open-window packet with the same container id followed by the items.
+     * The client keeps its cursor and no new window is created.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+        if (!open) return;
+
+        send(openScreenPacket(containerId, title, size));
+        sendContents();
+    }
+
+    /**
+     * Changes the title of the chest inventory a player is currently viewing, without reopening it.
+     * The open-window packet is re-sent with the existing container id, followed by the window items.
+     *
+     * @param player The viewing player
+     * @param title  New title of the window
+     * @param size   Number of slots of the viewed inventory
+     */
+    public static void retitle(Player player, String title, int size) {
+        ServerPlayer serverPlayer = (ServerPlayer) ReflectionUtils.getHandle(player);
+        serverPlayer.connection.send(openScreenPacket(serverPlayer.containerMenu.containerId, title, size));
+        player.updateInventory();
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public int getContainerId() {
+        return containerId;
+    }
+
+    private void sendContents() {
+        // Carried item is reset as well, so a cancelled click never leaves a ghost item on the cursor
+        send(new ClientboundContainerSetContentPacket(containerId, 0, items, net.minecraft.world.item.ItemStack.EMPTY));
+    }
+
+    private void send(Packet<?> packet) {
+        serverPlayer.connection.send(packet);
+    }
+
+    private static ClientboundOpenScreenPacket openScreenPacket(int containerId, String title, int size) {
+        return new ClientboundOpenScreenPacket(containerId, MENU_TYPES[size / 9 - 1], Component.literal(title));
+    }
+
+    private net.minecraft.world.item.ItemStack toNMS(ItemStack item) {
+        if (item == null) return net.minecraft.world.item.ItemStack.EMPTY;
+        return (net.minecraft.world.item.ItemStack) ReflectionUtils.asNMSCopy(item);
+    }
+
+    private void handleClosed() {
+        if (!open) return;
+        open = false;
+        uninjectPacketListener();
+        if (closeHandler != null) Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(VirtualMenu.class), closeHandler);
+    }
+
+    private void injectPacketListener() {
+        if (channel == null) throw new IllegalStateException("Could not find the network channel of " + player.getName());
+
+        if (channel.pipeline().get(handlerName) != null) {
+            channel.pipeline().remove(handlerName);
+        }
+
+        channel.pipeline().addBefore("packet_handler", handlerName, new ChannelDuplexHandler() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object packet) throws Exception {
+                if (packet instanceof ServerboundContainerClickPacket) {
+                    ServerboundContainerClickPacket clickPacket = (ServerboundContainerClickPacket) packet;
+
+                    if (clickPacket.getContainerId() == containerId) {
+                        // Undo the client-side prediction, the server never sees this click
+                        sendContents();
+
+                        int slot = clickPacket.getSlotNum();
+                        int button = clickPacket.getButtonNum();
+                        Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(VirtualMenu.class), () -> {
+                            if (slot >= 0 && slot < size) {
+                                if (clickHandler != null) clickHandler.onClick(slot, button);
+                            } else {
+                                // Clicks in the bottom inventory were predicted on the real player inventory
+                                player.updateInventory();
+                            }
+                        });
+                        return;
+                    }
+                }
+
+                if (packet instanceof ServerboundContainerClosePacket) {
+                    if (((ServerboundContainerClosePacket) packet).getContainerId() == containerId) {
+                        handleClosed();
+                        return;
+                    }
+                }
+                super.channelRead(ctx, packet);
+            }
+
+            @Override
+            public void write(ChannelHandlerContext ctx, Object packet, ChannelPromise promise) throws Exception {
+                // Another window replaced ours on the client, or the server closed it (player.closeInventory(), ...)
+                if (packet instanceof ClientboundContainerClosePacket
+                        || packet instanceof ClientboundOpenScreenPacket && ((ClientboundOpenScreenPacket) packet).getContainerId() != containerId) {
+                    handleClosed();
+                }
+                super.write(ctx, packet, promise);
+            }
+
+            @Override
+            public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+                handleClosed();
+                super.channelInactive(ctx);
+            }
+        });
+    }
+
+    private void uninjectPacketListener() {
+        if (channel == null) return;
+        try {
+            channel.eventLoop().execute(() -> {
+                if (channel.pipeline().get(handlerName) != null) {
+                    channel.pipeline().remove(handlerName);
+                }
+            });
+        } catch (Exception ignored) {}
+    }
+
+    private Channel getChannel(ServerPlayer serverPlayer) {
+        try {
+            Object connectionListener = serverPlayer.connection;
+            Object networkManager = null;
+
+            Class<?> clazz = connectionListener.getClass();
+            while (clazz != null && networkManager == null) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (Connection.class.isAssignableFrom(field.getType())) {
+                        field.setAccessible(true);
+                        networkManager = field.get(connectionListener);
+                        break;
+                    }
+                }
+                clazz = clazz.getSuperclass();
+            }
+
+            if (networkManager == null) return null;
+
+            Channel channel = null;
+            clazz = networkManager.getClass();
+            while (clazz != null && channel == null) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (Channel.class.isAssignableFrom(field.getType())) {
+                        field.setAccessible(true);
+                        channel = (Channel) field.get(networkManager);
+                        break;
+                    }
+                }
+                clazz = clazz.getSuperclass();
+            }
+
+            return channel;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Callback interface for clicks inside a virtual menu.
+     */
+    public interface ClickHandler {
+        /**
+         * @param slot   The raw slot that was clicked.
+         * @param button The mouse button used (0 left, 1 right).
+         */
+        void onClick(int slot, int button);
+    }
+}
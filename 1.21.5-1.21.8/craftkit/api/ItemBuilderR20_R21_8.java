@@ -2,7 +2,15 @@ package fr.arnaud.craftkit.api;
 
 import com.mojang.authlib.GameProfile;
 import com.mojang.authlib.properties.Property;
+import fr.arnaud.craftkit.util.ReflectionUtils;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.network.chat.Component;
+import net.minecraft.util.Unit;
 import net.minecraft.util.datafix.DataFixTypes;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.component.ItemLore;
+import net.minecraft.world.item.component.ResolvableProfile;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
@@ -10,11 +18,20 @@ import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.plugin.java.JavaPlugin;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Utility class for easier ItemStack creation and customization.
@@ -22,17 +39,43 @@ import java.util.UUID;
  */
 public class ItemBuilder {
 
+    private static final int PROFILE_CACHE_SIZE = 512;
+
+    // Texture profiles are shared between heads, most recently used first
+    private static final Map<String, GameProfile> PROFILES = Collections.synchronizedMap(
+            new LinkedHashMap<String, GameProfile>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GameProfile> eldest) {
+                    return size() > PROFILE_CACHE_SIZE;
+                }
+            });
+    private static Field profileField;
+
+    // CraftBukkit lookups of the direct path, resolved once
+    private static Method getItemMethod;
+    private static Method fromStringMethod;
+    private static Method asCraftMirrorMethod;
+
     private final ItemStack itemStack;
     private final ItemMeta itemMeta;
     private final SkullMeta skullMeta;
     private final boolean isSkull;
 
+    // Lore is collected here and applied once in build(), instead of copying the meta lore on every line
+    private List<String> lore;
+
+    // Everything set on the builder, so equal items can be recognised without comparing their metas
+    private final BuilderSpec builderSpec = new BuilderSpec();
+
     public ItemBuilder(Material material, String displayName) {
         this(material, displayName, 1);
     }
 
     public ItemBuilder(Material material, String displayName, int amount) {
         this.itemStack = new ItemStack(material, amount);
+        builderSpec.type = material;
+        builderSpec.amount = amount;
+        builderSpec.name = displayName;
         this.isSkull = material == Material.PLAYER_HEAD;
 
         if (isSkull) {
@@ -46,53 +89,112 @@ public class ItemBuilder {
         }
     }
 
+    public ItemBuilder(ItemSpec spec, String displayName) {
+        this(spec, displayName, 1);
+    }
+
+    /**
+     * Creates the item from a version-neutral {@link ItemSpec}, applying its legacy data value if any.
+     */
+    public ItemBuilder(ItemSpec spec, String displayName, int amount) {
+        this(spec.getMaterial(), displayName, amount);
+        builderSpec.item = spec;
+        if (spec.getData() != 0) setDurability(spec.getData());
+    }
+
     public ItemBuilder setAmount(int amount) {
         itemStack.setAmount(amount);
+        builderSpec.amount = amount;
         return this;
     }
 
     public ItemBuilder setUnbreakable() {
         (isSkull ? skullMeta : itemMeta).setUnbreakable(true);
+        builderSpec.unbreakable = true;
         return this;
     }
 
     public ItemBuilder setDisplayName(String name) {
         (isSkull ? skullMeta : itemMeta).setDisplayName(name);
+        builderSpec.name = name;
         return this;
     }
 
     public ItemBuilder setLore(String... lore) {
-        (isSkull ? skullMeta : itemMeta).setLore(Arrays.asList(lore));
+        this.lore = new ArrayList<>(Arrays.asList(lore));
         return this;
     }
 
     public ItemBuilder setLore(List<String> lore) {
-        (isSkull ? skullMeta : itemMeta).setLore(lore);
+        this.lore = new ArrayList<>(lore);
+        return this;
+    }
+
+    /**
+     * Renders a compiled {@link LoreTemplate}, the rendered lines are used as they are instead of being copied again.
+     */
+    public ItemBuilder setLore(LoreTemplate lore, Function<String, String> placeholders) {
+        this.lore = lore.render(placeholders);
         return this;
     }
 
     public ItemBuilder addLore(String line) {
-        List<String> lore = (isSkull ? skullMeta : itemMeta).getLore();
+        if (lore == null) lore = new ArrayList<>();
         lore.add(line);
-        (isSkull ? skullMeta : itemMeta).setLore(lore);
         return this;
     }
 
     public ItemBuilder setOwner(Player owner) {
         if (isSkull) {
+            builderSpec.owner = owner.getUniqueId().toString();
             itemStack.setDurability((short) DataFixTypes.PLAYER.ordinal());
             skullMeta.setOwningPlayer(owner);
         }
         return this;
     }
 
+    /**
+     * Resolves the owner through the default {@link ProfileCache}, without blocking the main thread,
+     * so offline players can be shown too. The future completes on the main thread once the skin
+     * is applied, {@link #build()} should only be called after that.
+     */
+    public CompletableFuture<ItemBuilder> setOwnerAsync(UUID owner) {
+        if (isSkull) builderSpec.owner = owner.toString();
+        return setSkinAsync(ProfileCache.getDefault().get(owner));
+    }
+
+    /**
+     * Same as {@link #setOwnerAsync(UUID)}, resolving the owner by name.
+     */
+    public CompletableFuture<ItemBuilder> setOwnerAsync(String owner) {
+        if (isSkull) builderSpec.owner = owner;
+        return setSkinAsync(ProfileCache.getDefault().get(owner));
+    }
+
+    private CompletableFuture<ItemBuilder> setSkinAsync(CompletableFuture<SkinProfile> lookup) {
+        if (!isSkull) return CompletableFuture.completedFuture(this);
+
+        JavaPlugin plugin = JavaPlugin.getProvidingPlugin(ItemBuilder.class);
+        return lookup.thenApplyAsync(skin -> {
+            if (skin == null || skin.getTexture() == null) return this;
+
+            itemStack.setDurability((short) DataFixTypes.PLAYER.ordinal());
+            GameProfile profile = new GameProfile(skin.getId(), skin.getName());
+            profile.getProperties().put("textures", new Property("textures", skin.getTexture(), skin.getSignature()));
+            setProfile(profile);
+            return this;
+        }, task -> Bukkit.getScheduler().runTask(plugin, task));
+    }
+
     public ItemBuilder addFlag(ItemFlag flag) {
         (isSkull ? skullMeta : itemMeta).addItemFlags(flag);
+        builderSpec.flags.add(flag.name());
         return this;
     }
 
     public ItemBuilder setDurability(short durability) {
         itemStack.setDurability(durability);
+        builderSpec.durability = durability;
         return this;
     }
 
@@ -101,27 +203,121 @@ public class ItemBuilder {
 
         itemStack.setDurability((short) DataFixTypes.PLAYER.ordinal());
 
-        GameProfile profile = new GameProfile(UUID.randomUUID(), null);
+        setProfile(PROFILES.computeIfAbsent(texture, ItemBuilder::createProfile));
+        builderSpec.texture = texture;
+        return this;
+    }
+
+    /**
+     * The UUID is derived from the texture, so the same head always gets the same
+     * profile and clients can reuse the skin they already downloaded.
+     */
+    private static GameProfile createProfile(String texture) {
+        GameProfile profile = new GameProfile(UUID.nameUUIDFromBytes(texture.getBytes(StandardCharsets.UTF_8)), null);
         profile.getProperties().put("textures", new Property("textures", texture));
+        return profile;
+    }
 
+    private void setProfile(GameProfile profile) {
         try {
-            Field profileField = skullMeta.getClass().getDeclaredField("profile");
-            profileField.setAccessible(true);
-            profileField.set(skullMeta, profile);
+            if (profileField == null) {
+                Field field = skullMeta.getClass().getDeclaredField("profile");
+                field.setAccessible(true);
+                profileField = field;
+            }
+            // CraftMetaSkull keeps a ResolvableProfile since 1.20.5
+            profileField.set(skullMeta, new ResolvableProfile(profile));
         } catch (Exception e) {
             e.printStackTrace();
         }
+    }
 
-        return this;
+    /**
+     * Fast path for plain icons: the NMS stack and its data components are built directly,
+     * without the ItemMeta copy and re-serialization of the builder. The stack is wrapped with
+     * CraftItemStack.asCraftMirror, so nothing is converted again when it is placed or sent.
+     *
+     * @param material    Type of the item
+     * @param amount      Stack size
+     * @param displayName Name with '§' color codes (can be null)
+     * @param lore        Lore lines with '§' color codes (can be null)
+     * @param unbreakable Marks the item as unbreakable
+     * @param glint       Shows the enchantment glint without any enchantment
+     * @return A Bukkit mirror of the NMS stack
+     */
+    public static ItemStack createDirect(Material material, int amount, String displayName, List<String> lore, boolean unbreakable, boolean glint) {
+        net.minecraft.world.item.ItemStack stack = directStack(material, amount, displayName, lore);
+        if (unbreakable) stack.set(DataComponents.UNBREAKABLE, Unit.INSTANCE);
+        if (glint) stack.set(DataComponents.ENCHANTMENT_GLINT_OVERRIDE, true);
+        return mirror(stack);
+    }
+
+    /**
+     * Fast path for textured heads, see {@link #createDirect}. The profile is shared with {@link #setTexture}.
+     */
+    public static ItemStack createDirectSkull(String texture, String displayName, List<String> lore) {
+        net.minecraft.world.item.ItemStack stack = directStack(Material.PLAYER_HEAD, 1, displayName, lore);
+        GameProfile profile = PROFILES.computeIfAbsent(texture, ItemBuilder::createProfile);
+        stack.set(DataComponents.PROFILE, new ResolvableProfile(profile));
+        return mirror(stack);
+    }
+
+    private static net.minecraft.world.item.ItemStack directStack(Material material, int amount, String displayName, List<String> lore) {
+        try {
+            if (getItemMethod == null) {
+                getItemMethod = ReflectionUtils.getCraftClass("util.CraftMagicNumbers").getMethod("getItem", Material.class);
+                fromStringMethod = ReflectionUtils.getCraftClass("util.CraftChatMessage").getMethod("fromStringOrNull", String.class);
+            }
+
+            net.minecraft.world.item.ItemStack stack = new net.minecraft.world.item.ItemStack((Item) getItemMethod.invoke(null, material), amount);
+            if (displayName != null) stack.set(DataComponents.CUSTOM_NAME, (Component) fromStringMethod.invoke(null, displayName));
+
+            if (lore != null && !lore.isEmpty()) {
+                List<Component> lines = new ArrayList<>(lore.size());
+                for (String line : lore) lines.add((Component) fromStringMethod.invoke(null, line));
+                stack.set(DataComponents.LORE, new ItemLore(lines));
+            }
+            return stack;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to build NMS item " + material, e);
+        }
+    }
+
+    private static ItemStack mirror(net.minecraft.world.item.ItemStack stack) {
+        try {
+            if (asCraftMirrorMethod == null) {
+                asCraftMirrorMethod = ReflectionUtils.getCraftClass("inventory.CraftItemStack").getMethod("asCraftMirror", net.minecraft.world.item.ItemStack.class);
+            }
+            return (ItemStack) asCraftMirrorMethod.invoke(null, stack);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to mirror NMS item", e);
+        }
     }
 
     public ItemBuilder addEnchantment(Enchantment enchantment, int level) {
         (isSkull ? skullMeta : itemMeta).addEnchant(enchantment, level, true);
+        builderSpec.enchantments.put(enchantment.getName(), level);
         return this;
     }
 
     public ItemStack build() {
+        if (lore != null) (isSkull ? skullMeta : itemMeta).setLore(lore);
         itemStack.setItemMeta(isSkull ? skullMeta : itemMeta);
         return itemStack;
     }
+
+    /**
+     * @return An immutable snapshot of what was set on this builder, used as the key of an {@link ItemInterner}
+     */
+    public BuilderSpec getSpec() {
+        return builderSpec.freeze(lore);
+    }
+
+    /**
+     * Freezes the current state into an immutable template. The meta is built once here,
+     * each {@link ItemTemplate#create()} then only clones the prototype.
+     */
+    public ItemTemplate toTemplate() {
+        return new ItemTemplate(build());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,369 @@
+package fr.arnaud.craftkit.api;
+
+import fr.arnaud.craftkit.util.ReflectionUtils;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packet-only chest menu using Netty and reflection.
+ * The window, its items and its clicks only exist on the network: no Bukkit Inventory,
+ * InventoryView or server-side container is created, which makes it very cheap for
+ * cosmetic or read-only menus shown to many players.
+ */
+public class VirtualMenu {
+
+    // Reflection lookups are resolved once and shared by every menu
+    private static Method sendPacketMethod;
+    private static Method asNMSCopyMethod;
+    private static Constructor<?> openWindowConstructor;
+    private static Constructor<?> windowItemsConstructor;
+    private static Constructor<?> setSlotConstructor;
+    private static Constructor<?> closeWindowConstructor;
+    private static Method emptyListMethod;
+    private static Class<?> windowClickClass;
+    private static Class<?> closeWindowClass;
+    private static Class<?> openWindowClass;
+    private static Class<?> serverCloseWindowClass;
+
+    private final Player player;
+    private String title;
+    private final int size;
+    private final ClickHandler clickHandler;
+    private final Runnable closeHandler;
+    private final String handlerName;
+    private final Object[] items;
+
+    private Object playerConnection;
+    private Channel channel;
+    private int containerId;
+    private volatile boolean open;
+
+    /**
+     * @param player       The player who will see the menu.
+     * @param title        Title of the window.
+     * @param size         Number of slots, a multiple of 9 up to 54.
+     * @param clickHandler Called on the main thread when a slot of the menu is clicked (can be null).
+     * @param closeHandler Called on the main thread when the client closes the menu (can be null).
+     */
+    public VirtualMenu(Player player, String title, int size, ClickHandler clickHandler, Runnable closeHandler) {
+        if (size <= 0 || size > 54 || size % 9 != 0) throw new IllegalArgumentException("Invalid menu size: " + size);
+
+        this.player = player;
+        this.title = title;
+        this.size = size;
+        this.clickHandler = clickHandler;
+        this.closeHandler = closeHandler;
+        this.handlerName = "VirtualMenu_" + player.getUniqueId();
+        this.items = new Object[size];
+
+        for (int slot = 0; slot < size; slot++) items[slot] = toNMS(null);
+    }
+
+    /**
+     * Sends the open-window and window-items packets and starts intercepting clicks.
+     */
+    public void open() {
+        try {
+            Object entityPlayer = ReflectionUtils.getHandle(player);
+            this.playerConnection = ReflectionUtils.getFieldValue(entityPlayer, "playerConnection");
+            Object networkManager = ReflectionUtils.getFieldValue(playerConnection, "networkManager");
+            this.channel = (Channel) ReflectionUtils.getFieldValue(networkManager, "channel");
+            this.containerId = (int) ReflectionUtils.invokeMethod(entityPlayer, "nextContainerCounter");
+
+            injectPacketListener();
+            open = true;
+
+            sendPacket(openWindowPacket(containerId, title, size));
+            sendContents();
+        } catch (Exception e) {
+            close();
+            throw new RuntimeException("Failed to open VirtualMenu for player " + player.getName(), e);
+        }
+    }
+
+    /**
+     * Sets an item, sending a single set-slot packet if the menu is open.
+     */
+    public void setItem(int slot, ItemStack item) {
+        Object nmsItem = toNMS(item);
+        items[slot] = nmsItem;
+        if (open) sendSlot(slot, nmsItem);
+    }
+
+    /**
+     * Replaces every item, sending a single window-items packet if the menu is open.
+     */
+    public void setContents(ItemStack[] contents) {
+        for (int slot = 0; slot < size; slot++) {
+            items[slot] = toNMS(slot < contents.length ? contents[slot] : null);
+        }
+        if (open) sendContents();
+    }
+
+    /**
+     * Closes the window on the client and stops intercepting packets.
+     */
+    public void close() {
+        boolean wasOpen = open;
+        // Cleared first, so the write handler does not report our own close packet as a close
+        open = false;
+        if (wasOpen) {
+            try {
+                sendPacket(closeWindowConstructor().newInstance(containerId));
+            } catch (Exception e) {
+                // Ignore, the player may have disconnected
+            }
+        }
+        uninjectPacketListener();
+    }
+
+    /**
+     * Changes the title, re-sending the open-window packet with the same container id followed by the items.
+     * The client keeps its cursor and no new window is created.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+        if (!open) return;
+
+        try {
+            sendPacket(openWindowPacket(containerId, title, size));
+            sendContents();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Changes the title of the chest inventory a player is currently viewing, without reopening it.
+     * The open-window packet is re-sent with the existing container id, followed by the window items.
+     *
+     * @param player The viewing player
+     * @param title  New title of the window
+     * @param size   Number of slots of the viewed inventory
+     */
+    public static void retitle(Player player, String title, int size) {
+        try {
+            Object entityPlayer = ReflectionUtils.getHandle(player);
+            Object playerConnection = ReflectionUtils.getFieldValue(entityPlayer, "playerConnection");
+            Object container = ReflectionUtils.getFieldValue(entityPlayer, "activeContainer");
+            int containerId = (int) ReflectionUtils.getFieldValue(container, "windowId");
+
+            sendPacket(playerConnection, openWindowPacket(containerId, title, size));
+            player.updateInventory();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public int getContainerId() {
+        return containerId;
+    }
+
+    private void sendContents() {
+        try {
+            Constructor<?> constructor = windowItemsConstructor();
+            List<Object> list;
+
+            // 1.8 - 1.10 take a plain List, 1.11+ a NonNullList
+            if (constructor.getParameterTypes()[1] == List.class) {
+                list = new ArrayList<>(size);
+            } else {
+                list = emptyList();
+            }
+            for (Object item : items) list.add(item);
+
+            sendPacket(constructor.newInstance(containerId, list));
+            // Reset the cursor, so a cancelled click never leaves a ghost item on it
+            sendSlot(-1, toNMS(null));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void sendSlot(int slot, Object nmsItem) {
+        try {
+            sendPacket(setSlotConstructor().newInstance(slot == -1 ? -1 : containerId, slot, nmsItem));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void sendPacket(Object packet) throws Exception {
+        sendPacket(playerConnection, packet);
+    }
+
+    private static void sendPacket(Object playerConnection, Object packet) throws Exception {
+        if (sendPacketMethod == null) {
+            sendPacketMethod = playerConnection.getClass().getMethod("sendPacket", ReflectionUtils.getNMSClass("Packet"));
+        }
+        sendPacketMethod.invoke(playerConnection, packet);
+    }
+
+    private static Object toNMS(ItemStack item) {
+        try {
+            if (asNMSCopyMethod == null) {
+                asNMSCopyMethod = ReflectionUtils.getCraftClass("inventory.CraftItemStack").getMethod("asNMSCopy", ItemStack.class);
+            }
+            return asNMSCopyMethod.invoke(null, item);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to convert ItemStack to NMS", e);
+        }
+    }
+
+    private static Object openWindowPacket(int containerId, String title, int size) throws Exception {
+        Object chatTitle = ReflectionUtils.getNMSClass("ChatMessage").getConstructor(String.class, Object[].class).newInstance(title, new Object[0]);
+        return openWindowConstructor().newInstance(containerId, "minecraft:chest", chatTitle, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> emptyList() throws Exception {
+        if (emptyListMethod == null) {
+            emptyListMethod = ReflectionUtils.getNMSClass("NonNullList").getMethod("a");
+        }
+        return (List<Object>) emptyListMethod.invoke(null);
+    }
+
+    private static Constructor<?> openWindowConstructor() throws Exception {
+        if (openWindowConstructor == null) {
+            openWindowConstructor = openWindowClass().getConstructor(int.class, String.class, ReflectionUtils.getNMSClass("IChatBaseComponent"), int.class);
+        }
+        return openWindowConstructor;
+    }
+
+    private static Constructor<?> windowItemsConstructor() {
+        if (windowItemsConstructor == null) {
+            for (Constructor<?> constructor : ReflectionUtils.getNMSClass("PacketPlayOutWindowItems").getConstructors()) {
+                Class<?>[] types = constructor.getParameterTypes();
+                if (types.length == 2 && types[0] == int.class && List.class.isAssignableFrom(types[1])) {
+                    windowItemsConstructor = constructor;
+                    break;
+                }
+            }
+        }
+        return windowItemsConstructor;
+    }
+
+    private static Constructor<?> setSlotConstructor() throws Exception {
+        if (setSlotConstructor == null) {
+            setSlotConstructor = ReflectionUtils.getNMSClass("PacketPlayOutSetSlot").getConstructor(int.class, int.class, ReflectionUtils.getNMSClass("ItemStack"));
+        }
+        return setSlotConstructor;
+    }
+
+    private static Constructor<?> closeWindowConstructor() throws Exception {
+        if (closeWindowConstructor == null) {
+            closeWindowConstructor = ReflectionUtils.getNMSClass("PacketPlayOutCloseWindow").getConstructor(int.class);
+        }
+        return closeWindowConstructor;
+    }
+
+    private static Class<?> openWindowClass() {
+        if (openWindowClass == null) openWindowClass = ReflectionUtils.getNMSClass("PacketPlayOutOpenWindow");
+        return openWindowClass;
+    }
+
+    private void handleClosed() {
+        if (!open) return;
+        open = false;
+        uninjectPacketListener();
+        if (closeHandler != null) Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(VirtualMenu.class), closeHandler);
+    }
+
+    private void injectPacketListener() {
+        if (windowClickClass == null) windowClickClass = ReflectionUtils.getNMSClass("PacketPlayInWindowClick");
+        if (closeWindowClass == null) closeWindowClass = ReflectionUtils.getNMSClass("PacketPlayInCloseWindow");
+        Class<?> openClass = openWindowClass();
+        if (serverCloseWindowClass == null) serverCloseWindowClass = ReflectionUtils.getNMSClass("PacketPlayOutCloseWindow");
+
+        if (channel.pipeline().get(handlerName) != null) {
+            channel.pipeline().remove(handlerName);
+        }
+
+        channel.pipeline().addBefore("packet_handler", handlerName, new ChannelDuplexHandler() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object packet) throws Exception {
+                if (windowClickClass.isInstance(packet) && (int) ReflectionUtils.getFieldValue(packet, "a") == containerId) {
+                    // Undo the client-side prediction, the server never sees this click
+                    sendContents();
+
+                    int slot = (int) ReflectionUtils.getFieldValue(packet, "slot");
+                    int button = (int) ReflectionUtils.getFieldValue(packet, "button");
+                    Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(VirtualMenu.class), () -> {
+                        if (slot >= 0 && slot < size) {
+                            if (clickHandler != null) clickHandler.onClick(slot, button);
+                        } else {
+                            // Clicks in the bottom inventory were predicted on the real player inventory
+                            player.updateInventory();
+                        }
+                    });
+                    return;
+                }
+
+                if (closeWindowClass.isInstance(packet) && (int) ReflectionUtils.getFieldValue(packet, "id") == containerId) {
+                    handleClosed();
+                    return;
+                }
+                super.channelRead(ctx, packet);
+            }
+
+            @Override
+            public void write(ChannelHandlerContext ctx, Object packet, ChannelPromise promise) throws Exception {
+                // Another window replaced ours on the client, or the server closed it (player.closeInventory(), ...)
+                if (serverCloseWindowClass.isInstance(packet)
+                        || openClass.isInstance(packet) && (int) ReflectionUtils.getFieldValue(packet, "a") != containerId) {
+                    handleClosed();
+                }
+                super.write(ctx, packet, promise);
+            }
+
+            @Override
+            public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+                handleClosed();
+                super.channelInactive(ctx);
+            }
+        });
+    }
+
+    private void uninjectPacketListener() {
+        if (channel == null) return;
+        try {
+            channel.eventLoop().execute(() -> {
+                if (channel.pipeline().get(handlerName) != null) {
+                    channel.pipeline().remove(handlerName);
+                }
+            });
+        } catch (Exception e) {
+            // Silently fail, as the player might be offline or the channel closed
+        }
+    }
+
+    /**
+     * Callback interface for clicks inside a virtual menu.
+     */
+    public interface ClickHandler {
+        /**
+         * @param slot   The raw slot that was clicked.
+         * @param button The mouse button used (0 left, 1 right).
+         */
+        void onClick(int slot, int button);
+    }
+}
@@ -0,0 +1,175 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single animation clock shared by every CraftKit menu.
+ * Animations are grouped by period on a timing wheel, so one scheduler task drives every
+ * animated slot of every menu and the scheduler overhead stays flat as menus are added.
+ * Must only be used from the main thread.
+ */
+public final class AnimationTicker {
+
+    // Power of two so the slot of a tick is a simple mask
+    private static final int WHEEL_SIZE = 64;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private static final List<List<Bucket>> WHEEL = new ArrayList<>(WHEEL_SIZE);
+    private static final Map<Long, Bucket> BUCKETS = new HashMap<>();
+
+    private static BukkitTask task;
+    private static long tick;
+
+    static {
+        for (int i = 0; i < WHEEL_SIZE; i++) WHEEL.add(new ArrayList<>());
+    }
+
+    private AnimationTicker() {
+    }
+
+    /**
+     * Registers an animation. Its first frame is shown immediately, the next ones
+     * are batched with every other animation sharing the same period.
+     *
+     * @param period    Ticks between two frames
+     * @param animation The animation to run
+     * @return Handle used to cancel the animation
+     */
+    public static Handle schedule(long period, Animation animation) {
+        if (period <= 0) throw new IllegalArgumentException("Animation period must be positive");
+
+        Handle handle = new Handle(animation);
+        Bucket bucket = BUCKETS.get(period);
+        if (bucket == null) {
+            bucket = new Bucket(period);
+            BUCKETS.put(period, bucket);
+            place(bucket);
+        }
+        bucket.handles.add(handle);
+
+        if (!animation.isPaused()) animation.tick();
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(JavaPlugin.getProvidingPlugin(AnimationTicker.class), AnimationTicker::advance, 1L, 1L);
+        }
+        return handle;
+    }
+
+    /**
+     * @return Number of animations currently registered
+     */
+    public static int size() {
+        int count = 0;
+        for (Bucket bucket : BUCKETS.values()) count += bucket.handles.size();
+        return count;
+    }
+
+    private static void advance() {
+        tick++;
+        List<Bucket> slot = WHEEL.get((int) (tick & MASK));
+        if (slot.isEmpty()) return;
+
+        List<Bucket> due = new ArrayList<>();
+        for (Iterator<Bucket> it = slot.iterator(); it.hasNext(); ) {
+            Bucket bucket = it.next();
+            if (bucket.rounds > 0) {
+                bucket.rounds--;
+                continue;
+            }
+            it.remove();
+            due.add(bucket);
+        }
+
+        for (Bucket bucket : due) {
+            bucket.fire();
+
+            if (bucket.handles.isEmpty()) BUCKETS.remove(bucket.period);
+            else place(bucket);
+        }
+
+        if (BUCKETS.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static void place(Bucket bucket) {
+        long deadline = tick + bucket.period;
+        bucket.rounds = (bucket.period - 1) / WHEEL_SIZE;
+        WHEEL.get((int) (deadline & MASK)).add(bucket);
+    }
+
+    private static final class Bucket {
+        private final long period;
+        private final List<Handle> handles = new ArrayList<>();
+        private long rounds;
+
+        private Bucket(long period) {
+            this.period = period;
+        }
+
+        private void fire() {
+            for (Iterator<Handle> it = handles.iterator(); it.hasNext(); ) {
+                Handle handle = it.next();
+                if (handle.cancelled) {
+                    it.remove();
+                    continue;
+                }
+                if (handle.animation.isPaused()) continue;
+
+                try {
+                    handle.animation.tick();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * A frame source driven by the ticker.
+     */
+    public interface Animation {
+        /**
+         * @return true to skip frames, for example while the menu has no viewers
+         */
+        boolean isPaused();
+
+        /**
+         * Shows the next frame.
+         */
+        void tick();
+    }
+
+    /**
+     * Handle of a registered animation.
+     */
+    public static final class Handle {
+        private final Animation animation;
+        private boolean cancelled;
+
+        private Handle(Animation animation) {
+            this.animation = animation;
+        }
+
+        /**
+         * Stops the animation, it is removed on its next due tick.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
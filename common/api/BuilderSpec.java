@@ -0,0 +1,209 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Material;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * What an {@link ItemBuilder} was asked to build: material, amount, name, lore, enchantments,
+ * flags and skull settings, independent of the server version.
+ * The material is recorded as its modern {@link ItemSpec} key, with the legacy data value folded in
+ * (WOOL:14 is "red_wool"), so the same item built on 1.8 and on 1.20 has the same spec.
+ * Enchantments and flags are kept sorted, so two builders configured in a different order
+ * describe the same item and share the same {@link #contentHash()}.
+ */
+public final class BuilderSpec {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Set by the builders, turned into the modern key by freeze()
+    Material type;
+    ItemSpec item;
+
+    String material;
+    short durability;
+    int amount = 1;
+    String name;
+    boolean unbreakable;
+    String texture;
+    String owner;
+    final Map<String, Integer> enchantments = new TreeMap<>();
+    final Set<String> flags = new TreeSet<>();
+
+    private List<String> lore = Collections.emptyList();
+    private boolean frozen;
+    private long hash;
+
+    BuilderSpec() {
+    }
+
+    /**
+     * Returns an immutable copy of this spec with the given lore, used by {@link ItemBuilder#getSpec()}.
+     */
+    BuilderSpec freeze(List<String> lore) {
+        BuilderSpec copy = new BuilderSpec();
+        copy.material = material;
+        copy.durability = durability;
+        if (type != null) {
+            // Keep the key the builder was created from, unless the data value changed the item since
+            ItemSpec spec = item != null && item.matches(type, durability) ? item : ItemSpec.of(type, durability);
+            copy.material = spec.getKey();
+            copy.durability = durability == spec.getData() ? 0 : durability;
+        }
+        copy.amount = amount;
+        copy.name = name;
+        copy.unbreakable = unbreakable;
+        copy.texture = texture;
+        copy.owner = owner;
+        copy.enchantments.putAll(enchantments);
+        copy.flags.addAll(flags);
+        if (lore != null) copy.lore = Collections.unmodifiableList(new ArrayList<>(lore));
+        copy.hash = copy.computeHash();
+        copy.frozen = true;
+        return copy;
+    }
+
+    /**
+     * @return Modern item key, e.g. "red_wool" or "diamond_sword"
+     */
+    public String getMaterial() {
+        return material;
+    }
+
+    /**
+     * @return Durability left once the legacy data value is part of the key, usually a damage value
+     */
+    public short getDurability() {
+        return durability;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getLore() {
+        return lore;
+    }
+
+    /**
+     * @return Enchantment names mapped to their level, sorted by name
+     */
+    public Map<String, Integer> getEnchantments() {
+        return Collections.unmodifiableMap(enchantments);
+    }
+
+    /**
+     * @return Item flag names, sorted
+     */
+    public Set<String> getFlags() {
+        return Collections.unmodifiableSet(flags);
+    }
+
+    public boolean isUnbreakable() {
+        return unbreakable;
+    }
+
+    /**
+     * @return The skull texture, or null if none was set
+     */
+    public String getTexture() {
+        return texture;
+    }
+
+    /**
+     * @return The skull owner (UUID or name), or null if none was set
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the spec. It only depends on the content, so it is the same
+     * across restarts and servers and can be stored or compared between processes.
+     */
+    public long contentHash() {
+        return frozen ? hash : computeHash();
+    }
+
+    private long computeHash() {
+        long h = FNV_OFFSET;
+        h = mix(h, material);
+        h = mix(h, durability);
+        h = mix(h, amount);
+        h = mix(h, name);
+        h = mix(h, lore.size());
+        for (String line : lore) h = mix(h, line);
+        h = mix(h, enchantments.size());
+        for (Map.Entry<String, Integer> entry : enchantments.entrySet()) {
+            h = mix(h, entry.getKey());
+            h = mix(h, entry.getValue());
+        }
+        h = mix(h, flags.size());
+        for (String flag : flags) h = mix(h, flag);
+        h = mix(h, unbreakable ? 1 : 0);
+        h = mix(h, texture);
+        return mix(h, owner);
+    }
+
+    private static long mix(long h, String value) {
+        // Null and empty strings must not collide, the length prefix also separates fields
+        if (value == null) return mix(h, -1);
+        h = mix(h, value.length());
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix(long h, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            h ^= (value >>> shift) & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BuilderSpec)) return false;
+
+        BuilderSpec other = (BuilderSpec) o;
+        return contentHash() == other.contentHash()
+                && durability == other.durability
+                && amount == other.amount
+                && unbreakable == other.unbreakable
+                && Objects.equals(material, other.material)
+                && Objects.equals(name, other.name)
+                && lore.equals(other.lore)
+                && enchantments.equals(other.enchantments)
+                && flags.equals(other.flags)
+                && Objects.equals(texture, other.texture)
+                && Objects.equals(owner, other.owner);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = contentHash();
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "BuilderSpec{" + material + " x" + amount + ", name=" + name + ", hash=" + Long.toHexString(contentHash()) + "}";
+    }
+}
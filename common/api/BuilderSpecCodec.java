@@ -0,0 +1,413 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFlag;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compact binary form of a {@link BuilderSpec}, to pass menu items and rewards between servers
+ * (plugin messaging, queues, ...) without Bukkit's YAML serialization.
+ *
+ * <pre>
+ * byte[] data = BuilderSpecCodec.encode(new ItemBuilder(Material.DIAMOND, "&amp;bReward").setLore("&amp;7Daily"));
+ * ...
+ * ItemStack reward = BuilderSpecCodec.decode(data).build();
+ * // Heads of offline players, the future completes on the main thread once the skin is applied
+ * BuilderSpecCodec.decodeAsync(data).thenAccept(builder -&gt; player.getInventory().addItem(builder.build()));
+ * </pre>
+ *
+ * Layout: format version, string table, then the fields as varints referencing the table.
+ * Enchantments and flags known to the codec are written as their index in a fixed name list,
+ * standard skull textures only as the hash of their textures.minecraft.net URL.
+ * Materials are written as their modern {@link ItemSpec} key and names are resolved on the decoding
+ * server, so both servers may run different versions (WOOL:14 on 1.8 decodes to RED_WOOL on 1.20).
+ */
+public final class BuilderSpecCodec {
+
+    private static final int FORMAT = 1;
+
+    private static final int TEXTURE_NONE = 0;
+    private static final int TEXTURE_HASH = 1;
+    private static final int TEXTURE_STRING = 2;
+
+    private static final String TEXTURE_PREFIX = "{\"textures\":{\"SKIN\":{\"url\":\"http://textures.minecraft.net/texture/";
+    private static final String TEXTURE_SUFFIX = "\"}}}";
+
+    // Append only, the index of a name is part of the format
+    private static final String[] ENCHANTMENTS = {
+            "PROTECTION_ENVIRONMENTAL", "PROTECTION_FIRE", "PROTECTION_FALL", "PROTECTION_EXPLOSIONS",
+            "PROTECTION_PROJECTILE", "OXYGEN", "WATER_WORKER", "THORNS", "DEPTH_STRIDER", "FROST_WALKER",
+            "BINDING_CURSE", "DAMAGE_ALL", "DAMAGE_UNDEAD", "DAMAGE_ARTHROPODS", "KNOCKBACK", "FIRE_ASPECT",
+            "LOOT_BONUS_MOBS", "SWEEPING_EDGE", "DIG_SPEED", "SILK_TOUCH", "DURABILITY", "LOOT_BONUS_BLOCKS",
+            "ARROW_DAMAGE", "ARROW_KNOCKBACK", "ARROW_FIRE", "ARROW_INFINITE", "LUCK", "LURE", "LOYALTY",
+            "IMPALING", "RIPTIDE", "CHANNELING", "MULTISHOT", "QUICK_CHARGE", "PIERCING", "MENDING",
+            "VANISHING_CURSE", "SOUL_SPEED", "SWIFT_SNEAK"
+    };
+    private static final String[] FLAGS = {
+            "HIDE_ENCHANTS", "HIDE_ATTRIBUTES", "HIDE_UNBREAKABLE", "HIDE_DESTROYS", "HIDE_PLACED_ON",
+            "HIDE_POTION_EFFECTS", "HIDE_DYE", "HIDE_ARMOR_TRIM", "HIDE_ADDITIONAL_TOOLTIP", "HIDE_STORED_ENCHANTS"
+    };
+
+    private static final Map<String, Integer> ENCHANTMENT_IDS = index(ENCHANTMENTS);
+    private static final Map<String, Integer> FLAG_IDS = index(FLAGS);
+
+    private BuilderSpecCodec() {
+    }
+
+    public static byte[] encode(ItemBuilder builder) {
+        return encode(builder.getSpec());
+    }
+
+    public static byte[] encode(BuilderSpec spec) {
+        // Strings are only written once, fields reference them by index + 1 (0 is null)
+        List<String> strings = new ArrayList<>();
+        Output fields = new Output(64);
+
+        fields.writeVarInt(ref(strings, spec.getMaterial()));
+        fields.writeVarInt(spec.getAmount());
+        fields.writeVarInt(spec.getDurability() & 0xFFFF);
+        fields.writeVarInt(ref(strings, spec.getName()));
+
+        fields.writeVarInt(spec.getLore().size());
+        for (String line : spec.getLore()) fields.writeVarInt(ref(strings, line));
+
+        fields.writeVarInt(spec.getEnchantments().size());
+        for (Map.Entry<String, Integer> entry : spec.getEnchantments().entrySet()) {
+            // Known names are tagged with a 0 low bit, others with a 1 and a string reference
+            Integer id = ENCHANTMENT_IDS.get(entry.getKey());
+            fields.writeVarInt(id != null ? id << 1 : ref(strings, entry.getKey()) << 1 | 1);
+            fields.writeVarInt(entry.getValue());
+        }
+
+        int flagMask = 0;
+        List<String> otherFlags = new ArrayList<>(0);
+        for (String flag : spec.getFlags()) {
+            Integer id = FLAG_IDS.get(flag);
+            if (id != null) flagMask |= 1 << id;
+            else otherFlags.add(flag);
+        }
+        fields.writeVarInt(flagMask);
+        fields.writeVarInt(otherFlags.size());
+        for (String flag : otherFlags) fields.writeVarInt(ref(strings, flag));
+
+        fields.writeVarInt(spec.isUnbreakable() ? 1 : 0);
+        writeTexture(fields, strings, spec.getTexture());
+        fields.writeVarInt(ref(strings, spec.getOwner()));
+
+        Output out = new Output(fields.pos + strings.size() * 16 + 8);
+        out.writeVarInt(FORMAT);
+        out.writeVarInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeVarInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.write(fields.buf, 0, fields.pos);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes into a builder for this server version. Enchantments and flags that do not exist
+     * here are skipped. An offline skull owner is only resolved in the background, through the default
+     * {@link ProfileCache}: an item built right away may miss the skin, use {@link #decodeAsync} for heads.
+     *
+     * @throws IllegalArgumentException If the data is invalid or the material does not exist on this server
+     */
+    public static ItemBuilder decode(byte[] data) {
+        BuilderSpec spec = decodeSpec(data);
+        ItemBuilder builder = create(spec);
+        if (spec.getOwner() != null) setOwner(builder, spec.getOwner());
+        return builder;
+    }
+
+    /**
+     * Same as {@link #decode}, the future completing on the main thread once the skull owner
+     * (if any) is resolved and applied, so the builder can be built as soon as it is returned.
+     *
+     * @throws IllegalArgumentException If the data is invalid or the material does not exist on this server
+     */
+    public static CompletableFuture<ItemBuilder> decodeAsync(byte[] data) {
+        BuilderSpec spec = decodeSpec(data);
+        ItemBuilder builder = create(spec);
+        return spec.getOwner() != null ? setOwner(builder, spec.getOwner()) : CompletableFuture.completedFuture(builder);
+    }
+
+    private static ItemBuilder create(BuilderSpec spec) {
+        ItemSpec item = ItemSpec.find(spec.getMaterial());
+        if (item == null) throw new IllegalArgumentException("Unknown material '" + spec.getMaterial() + "' on this server version");
+
+        ItemBuilder builder = new ItemBuilder(item, spec.getName(), spec.getAmount());
+        if (spec.getDurability() != 0) builder.setDurability(spec.getDurability());
+        if (!spec.getLore().isEmpty()) builder.setLore(spec.getLore());
+
+        for (Map.Entry<String, Integer> entry : spec.getEnchantments().entrySet()) {
+            @SuppressWarnings("deprecation")
+            Enchantment enchantment = Enchantment.getByName(entry.getKey());
+            if (enchantment != null) builder.addEnchantment(enchantment, entry.getValue());
+        }
+        for (String flag : spec.getFlags()) {
+            try {
+                builder.addFlag(ItemFlag.valueOf(flag));
+            } catch (IllegalArgumentException ignored) {
+                // Flag added in a later version
+            }
+        }
+        if (spec.isUnbreakable()) builder.setUnbreakable();
+        if (spec.getTexture() != null) builder.setTexture(spec.getTexture());
+        return builder;
+    }
+
+    private static CompletableFuture<ItemBuilder> setOwner(ItemBuilder builder, String owner) {
+        UUID id;
+        try {
+            id = UUID.fromString(owner);
+        } catch (IllegalArgumentException e) {
+            return builder.setOwnerAsync(owner);
+        }
+
+        Player player = Bukkit.getPlayer(id);
+        if (player == null) return builder.setOwnerAsync(id);
+
+        builder.setOwner(player);
+        return CompletableFuture.completedFuture(builder);
+    }
+
+    /**
+     * Decodes the raw spec, without resolving anything against the server.
+     *
+     * @throws IllegalArgumentException If the data is invalid
+     */
+    public static BuilderSpec decodeSpec(byte[] data) {
+        Input in = new Input(data);
+
+        int format = in.readVarInt();
+        if (format != FORMAT) throw new IllegalArgumentException("Unsupported item format " + format);
+
+        String[] strings = new String[in.readLength()];
+        for (int i = 0; i < strings.length; i++) strings[i] = in.readString();
+
+        BuilderSpec spec = new BuilderSpec();
+        spec.material = in.readRef(strings);
+        spec.amount = in.readVarInt();
+        spec.durability = (short) in.readVarInt();
+        spec.name = in.readRef(strings);
+
+        String[] lore = new String[in.readLength()];
+        for (int i = 0; i < lore.length; i++) lore[i] = in.readRef(strings);
+
+        int enchantments = in.readLength();
+        for (int i = 0; i < enchantments; i++) {
+            int key = in.readVarInt();
+            String name = (key & 1) == 0 ? lookup(ENCHANTMENTS, key >>> 1) : in.name(strings, key >>> 1);
+            spec.enchantments.put(name, in.readVarInt());
+        }
+
+        int flagMask = in.readVarInt();
+        for (int i = 0; i < FLAGS.length; i++) {
+            if ((flagMask & 1 << i) != 0) spec.flags.add(FLAGS[i]);
+        }
+        int otherFlags = in.readLength();
+        for (int i = 0; i < otherFlags; i++) spec.flags.add(in.name(strings, in.readVarInt()));
+
+        spec.unbreakable = in.readVarInt() != 0;
+        spec.texture = readTexture(in, strings);
+        spec.owner = in.readRef(strings);
+        return spec.freeze(Arrays.asList(lore));
+    }
+
+    private static void writeTexture(Output out, List<String> strings, String texture) {
+        if (texture == null) {
+            out.writeVarInt(TEXTURE_NONE);
+            return;
+        }
+
+        byte[] hash = textureHash(texture);
+        if (hash != null) {
+            out.writeVarInt(TEXTURE_HASH);
+            out.writeVarInt(hash.length);
+            out.write(hash, 0, hash.length);
+        } else {
+            out.writeVarInt(TEXTURE_STRING);
+            out.writeVarInt(ref(strings, texture));
+        }
+    }
+
+    private static String readTexture(Input in, String[] strings) {
+        switch (in.readVarInt()) {
+            case TEXTURE_NONE:
+                return null;
+            case TEXTURE_HASH:
+                return textureOf(in.readBytes(in.readLength()));
+            case TEXTURE_STRING:
+                return in.readRef(strings);
+            default:
+                throw new IllegalArgumentException("Invalid texture reference");
+        }
+    }
+
+    /**
+     * @return The URL hash of a standard texture value, or null if the value would not be rebuilt exactly
+     */
+    private static byte[] textureHash(String texture) {
+        String json;
+        try {
+            json = new String(Base64.getDecoder().decode(texture), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!json.startsWith(TEXTURE_PREFIX) || !json.endsWith(TEXTURE_SUFFIX)) return null;
+
+        String hex = json.substring(TEXTURE_PREFIX.length(), json.length() - TEXTURE_SUFFIX.length());
+        if (hex.isEmpty() || hex.length() % 2 != 0) return null;
+
+        byte[] hash = new byte[hex.length() / 2];
+        for (int i = 0; i < hash.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) return null;
+            hash[i] = (byte) (high << 4 | low);
+        }
+
+        // Upper case digits or another padding would not survive the round trip
+        return texture.equals(textureOf(hash)) ? hash : null;
+    }
+
+    private static String textureOf(byte[] hash) {
+        StringBuilder json = new StringBuilder(TEXTURE_PREFIX.length() + hash.length * 2 + TEXTURE_SUFFIX.length());
+        json.append(TEXTURE_PREFIX);
+        for (byte b : hash) json.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        json.append(TEXTURE_SUFFIX);
+        return Base64.getEncoder().encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int ref(List<String> strings, String value) {
+        if (value == null) return 0;
+
+        // Tables are small (a name and a few lore lines), a linear scan beats hashing here
+        int index = strings.indexOf(value);
+        if (index < 0) {
+            strings.add(value);
+            index = strings.size() - 1;
+        }
+        return index + 1;
+    }
+
+    private static String lookup(String[] names, int id) {
+        if (id >= names.length) throw new IllegalArgumentException("Unknown id " + id);
+        return names[id];
+    }
+
+    private static Map<String, Integer> index(String[] names) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++) ids.put(names[i], i);
+        return ids;
+    }
+
+    private static final class Output {
+
+        private byte[] buf;
+        private int pos;
+
+        private Output(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        private void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buf[pos++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void write(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buf, pos, length);
+            pos += length;
+        }
+
+        private void ensure(int length) {
+            if (pos + length > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + length));
+        }
+
+        private byte[] toByteArray() {
+            return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buf;
+        private int pos;
+
+        private Input(byte[] buf) {
+            this.buf = buf;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (pos >= buf.length) throw new IllegalArgumentException("Truncated item data");
+
+                byte b = buf[pos++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Varint too long");
+        }
+
+        /**
+         * Reads a byte length or an element count. Every element takes at least one byte,
+         * so a valid value never exceeds what is left, which bounds any allocation by the input size.
+         */
+        private int readLength() {
+            int length = readVarInt();
+            if (length < 0 || length > buf.length - pos) throw new IllegalArgumentException("Invalid length " + length);
+            return length;
+        }
+
+        private byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        private String readString() {
+            int length = readLength();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        private String readRef(String[] strings) {
+            return ref(strings, readVarInt());
+        }
+
+        private String ref(String[] strings, int ref) {
+            if (ref == 0) return null;
+            if (ref < 0 || ref > strings.length) throw new IllegalArgumentException("Invalid string reference " + ref);
+            return strings[ref - 1];
+        }
+
+        /**
+         * Same as {@link #ref} for enchantment and flag names, which can't be null.
+         */
+        private String name(String[] strings, int ref) {
+            String name = ref(strings, ref);
+            if (name == null) throw new IllegalArgumentException("Missing name");
+            return name;
+        }
+    }
+}
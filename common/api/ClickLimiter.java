@@ -0,0 +1,105 @@
+package fr.arnaud.craftkit.api;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free per-player token bucket for menu clicks.
+ * Protects expensive click actions (purchases, database writes, ...) from auto-clickers
+ * and exposes how many clicks were accepted, throttled or dropped.
+ *
+ * <pre>
+ * private static final ClickLimiter LIMITER = new ClickLimiter(3, 5); // burst of 3, then 5 clicks/s
+ * ...
+ * setClickLimiter(LIMITER);
+ * </pre>
+ */
+public class ClickLimiter {
+
+    // Idle buckets are swept every CLEANUP_INTERVAL acquisitions
+    private static final int CLEANUP_INTERVAL = 1024;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Map<UUID, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * @param burst           Clicks accepted back to back before throttling starts
+     * @param clicksPerSecond Sustained click rate refilled into the bucket
+     */
+    public ClickLimiter(int burst, double clicksPerSecond) {
+        if (burst < 1 || clicksPerSecond <= 0) throw new IllegalArgumentException("Burst and rate must be positive");
+
+        this.intervalNanos = (long) (1_000_000_000L / clicksPerSecond);
+        this.burstNanos = intervalNanos * (burst - 1);
+    }
+
+    /**
+     * Takes one token from the player's bucket.
+     *
+     * @param player UUID of the clicking player
+     * @return true if the click may run, false if it is throttled
+     */
+    public boolean tryAcquire(UUID player) {
+        if (calls.incrementAndGet() % CLEANUP_INTERVAL == 0) cleanUp();
+
+        AtomicLong bucket = buckets.computeIfAbsent(player, uuid -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+
+        // The bucket stores the theoretical time at which it will be full again (GCRA)
+        while (true) {
+            long full = bucket.get();
+            long start = full == Long.MIN_VALUE || full - now < 0 ? now : full;
+
+            if (start - now > burstNanos) {
+                throttled.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(full, start + intervalNanos)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records a click dropped because a previous action was still running.
+     */
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Resets the counters, e.g. after exporting them to a metrics system.
+     */
+    public void resetMetrics() {
+        accepted.reset();
+        throttled.reset();
+        dropped.reset();
+    }
+
+    private void cleanUp() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now < 0);
+    }
+}
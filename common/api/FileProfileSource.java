@@ -0,0 +1,89 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@link ProfileSource} reading skins from a local YAML file, meant for tests and offline setups.
+ * An optional latency simulates a remote lookup.
+ *
+ * <pre>
+ * profiles:
+ *   069a79f4-44e9-4726-a5be-fca90e38aaf5:
+ *     name: Notch
+ *     texture: "ewogICJ0aW1lc3RhbXAiIDog..."
+ *     signature: "..." # optional
+ * </pre>
+ */
+public class FileProfileSource implements ProfileSource {
+
+    private final File file;
+    private volatile Map<UUID, SkinProfile> byId = Collections.emptyMap();
+    private volatile Map<String, SkinProfile> byName = Collections.emptyMap();
+    private volatile long latencyMillis;
+
+    public FileProfileSource(File file) {
+        this.file = file;
+        reload();
+    }
+
+    /**
+     * Reads the file again.
+     */
+    public void reload() {
+        Map<UUID, SkinProfile> ids = new HashMap<>();
+        Map<String, SkinProfile> names = new HashMap<>();
+
+        ConfigurationSection profiles = YamlConfiguration.loadConfiguration(file).getConfigurationSection("profiles");
+        if (profiles != null) {
+            long now = System.currentTimeMillis();
+            for (String key : profiles.getKeys(false)) {
+                ConfigurationSection section = profiles.getConfigurationSection(key);
+                if (section == null) continue;
+
+                SkinProfile profile = new SkinProfile(UUID.fromString(key), section.getString("name"),
+                        section.getString("texture"), section.getString("signature"), now);
+                ids.put(profile.getId(), profile);
+                if (profile.getName() != null) names.put(profile.getName().toLowerCase(Locale.ROOT), profile);
+            }
+        }
+
+        this.byId = ids;
+        this.byName = names;
+    }
+
+    /**
+     * Delays every lookup, to reproduce the behaviour of a remote source.
+     */
+    public void setLatency(long millis) {
+        this.latencyMillis = millis;
+    }
+
+    @Override
+    public SkinProfile fetch(UUID id) throws Exception {
+        simulateLatency();
+        return stamp(byId.get(id));
+    }
+
+    @Override
+    public SkinProfile fetch(String name) throws Exception {
+        simulateLatency();
+        return stamp(byName.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        if (latencyMillis > 0) Thread.sleep(latencyMillis);
+    }
+
+    private static SkinProfile stamp(SkinProfile profile) {
+        if (profile == null) return null;
+        return new SkinProfile(profile.getId(), profile.getName(), profile.getTexture(), profile.getSignature(), System.currentTimeMillis());
+    }
+}
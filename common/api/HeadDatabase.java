@@ -0,0 +1,416 @@
+package fr.arnaud.craftkit.api;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Read-only catalog of decorative head textures, stored in a compact binary file mapped in memory.
+ * Only the heads that are actually looked up are decoded into Strings, so the heap cost follows
+ * the heads in use rather than the size of the catalog. Textures are meant to be passed to
+ * {@code ItemBuilder.setTexture}, which caches their skull profiles.
+ *
+ * <pre>
+ * HeadDatabase heads = HeadDatabase.open(new File(getDataFolder(), "heads.bin"));
+ * ...
+ * new ItemBuilder(Material.PLAYER_HEAD, heads.getName(id)).setTexture(heads.getTexture(id)).build();
+ * </pre>
+ *
+ * File layout, all integers big-endian:
+ * <pre>
+ * header  magic, format, head count, tag count, word count
+ * heads   (id, record offset) per head, sorted by id
+ * tags    (name offset, ids offset, id count) per tag, sorted by name
+ * words   (word offset, ids offset, id count) per lowercase name word, sorted by word
+ * data    records (name, texture), then tag names and words with their id lists
+ * </pre>
+ */
+public class HeadDatabase implements Closeable {
+
+    // "CKHD", followed by the format version
+    private static final int MAGIC = 0x434B4844;
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = 20;
+    private static final int HEAD_ENTRY = 8;
+    // Tags and name words share the same entry layout
+    private static final int KEY_ENTRY = 12;
+    private static final int TEXTURE_CACHE_SIZE = 256;
+
+    private final MappedByteBuffer buffer;
+    private final int headCount;
+    private final int tagCount;
+    private final int tagsStart;
+    private final int wordCount;
+    private final int wordsStart;
+
+    private final Map<Integer, String> textures = Collections.synchronizedMap(new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > TEXTURE_CACHE_SIZE;
+        }
+    });
+
+    private HeadDatabase(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a head database");
+        }
+        if (buffer.getInt(4) != FORMAT) {
+            throw new IOException("Unsupported head database format " + buffer.getInt(4) + ", write it again with HeadDatabase.Writer");
+        }
+        this.headCount = buffer.getInt(8);
+        this.tagCount = buffer.getInt(12);
+        this.wordCount = buffer.getInt(16);
+        this.tagsStart = HEADER_SIZE + headCount * HEAD_ENTRY;
+        this.wordsStart = tagsStart + tagCount * KEY_ENTRY;
+    }
+
+    /**
+     * Maps a database file written by {@link Writer}.
+     */
+    public static HeadDatabase open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            return new HeadDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return Number of heads in the catalog
+     */
+    public int size() {
+        return headCount;
+    }
+
+    public boolean contains(int id) {
+        return record(id) >= 0;
+    }
+
+    /**
+     * @return Base64 texture of the head, or null if the id is unknown
+     */
+    public String getTexture(int id) {
+        String cached = textures.get(id);
+        if (cached != null) return cached;
+
+        int record = record(id);
+        if (record < 0) return null;
+
+        int textureAt = record + 2 + (buffer.getShort(record) & 0xFFFF);
+        String texture = readString(textureAt + 4, buffer.getInt(textureAt), StandardCharsets.US_ASCII);
+        textures.put(id, texture);
+        return texture;
+    }
+
+    /**
+     * @return Display name of the head, or null if the id is unknown
+     */
+    public String getName(int id) {
+        int record = record(id);
+        if (record < 0) return null;
+        return readString(record + 2, buffer.getShort(record) & 0xFFFF, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param tag Tag of the heads, case insensitive (e.g. "food", "alphabet")
+     * @return Ids of the heads having the tag, in ascending order
+     */
+    public int[] getByTag(String tag) {
+        String key = tag.toLowerCase(Locale.ROOT);
+        int index = lowerBound(tagsStart, tagCount, key);
+
+        if (index < tagCount && readKey(tagsStart + index * KEY_ENTRY).equals(key)) {
+            return readIds(tagsStart + index * KEY_ENTRY);
+        }
+        return new int[0];
+    }
+
+    /**
+     * Finds heads by name through the word index: every word of the query must start a word
+     * of the name, so "red wo" matches "Red Wool" but not "Bored Wolf".
+     * Only the index entries of the matching words are read.
+     *
+     * @param query Words or word prefixes of the name, case insensitive
+     * @param limit Maximum number of results
+     * @return Ids of the matching heads, in ascending order
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        Set<Integer> matches = null;
+        for (String prefix : words) {
+            Set<Integer> ids = new TreeSet<>();
+            for (int i = lowerBound(wordsStart, wordCount, prefix); i < wordCount; i++) {
+                int entry = wordsStart + i * KEY_ENTRY;
+                if (!readKey(entry).startsWith(prefix)) break;
+                for (int id : readIds(entry)) ids.add(id);
+            }
+
+            if (matches == null) matches = ids;
+            else matches.retainAll(ids);
+            if (matches.isEmpty()) break;
+        }
+
+        List<Integer> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (Integer id : matches) {
+            if (results.size() >= limit) break;
+            results.add(id);
+        }
+        return results;
+    }
+
+    /**
+     * Splits a name into lowercase words, on anything that is not a letter or a digit.
+     */
+    static List<String> words(String name) {
+        List<String> words = new ArrayList<>();
+        String lower = name.toLowerCase(Locale.ROOT);
+        int start = -1;
+
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean part = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (part && start < 0) start = i;
+            else if (!part && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Drops the decoded textures. The mapping itself is released by the garbage collector.
+     */
+    @Override
+    public void close() {
+        textures.clear();
+    }
+
+    /**
+     * Binary search of the id index.
+     *
+     * @return Offset of the record, or -1 if the id is unknown
+     */
+    private int record(int id) {
+        int low = 0;
+        int high = headCount - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = HEADER_SIZE + mid * HEAD_ENTRY;
+            int current = buffer.getInt(entry);
+
+            if (current < id) low = mid + 1;
+            else if (current > id) high = mid - 1;
+            else return buffer.getInt(entry + 4);
+        }
+        return -1;
+    }
+
+    /**
+     * Binary search of a sorted key index (tags or words).
+     *
+     * @return Index of the first key not lower than the given one, count if there is none
+     */
+    private int lowerBound(int start, int count, String key) {
+        int low = 0;
+        int high = count;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (readKey(start + mid * KEY_ENTRY).compareTo(key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private String readKey(int entry) {
+        int keyAt = buffer.getInt(entry);
+        return readString(keyAt + 2, buffer.getShort(keyAt) & 0xFFFF, StandardCharsets.UTF_8);
+    }
+
+    private int[] readIds(int entry) {
+        int idsAt = buffer.getInt(entry + 4);
+        int[] ids = new int[buffer.getInt(entry + 8)];
+        for (int i = 0; i < ids.length; i++) ids[i] = buffer.getInt(idsAt + i * 4);
+        return ids;
+    }
+
+    private String readString(int offset, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        // Absolute reads on a duplicate, so lookups from several threads never share a position
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Builds a database file, e.g. once from a YAML or JSON catalog.
+     */
+    public static class Writer {
+
+        private final TreeMap<Integer, Head> heads = new TreeMap<>();
+
+        /**
+         * @param id      Unique id of the head
+         * @param name    Display name
+         * @param texture Base64 texture value
+         * @param tags    Tags used by {@link HeadDatabase#getByTag}
+         * @return this writer
+         */
+        public Writer add(int id, String name, String texture, Collection<String> tags) {
+            heads.put(id, new Head(name, texture, tags));
+            return this;
+        }
+
+        /**
+         * Writes the database, replacing the file atomically.
+         */
+        public void write(File file) throws IOException {
+            // Heads are visited by ascending id, so every id list comes out sorted
+            TreeMap<String, List<Integer>> tags = new TreeMap<>();
+            TreeMap<String, List<Integer>> words = new TreeMap<>();
+            for (Map.Entry<Integer, Head> head : heads.entrySet()) {
+                for (String tag : head.getValue().tags) {
+                    addId(tags, tag.toLowerCase(Locale.ROOT), head.getKey());
+                }
+                for (String word : words(head.getValue().name)) {
+                    addId(words, word, head.getKey());
+                }
+            }
+
+            List<byte[]> names = new ArrayList<>();
+            List<byte[]> texturesData = new ArrayList<>();
+            for (Head head : heads.values()) {
+                names.add(head.name.getBytes(StandardCharsets.UTF_8));
+                texturesData.add(head.texture.getBytes(StandardCharsets.US_ASCII));
+            }
+
+            // Offsets of every record and tag, computed before writing so the indexes come first
+            int offset = HEADER_SIZE + heads.size() * HEAD_ENTRY + (tags.size() + words.size()) * KEY_ENTRY;
+            int[] records = new int[heads.size()];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = offset;
+                offset += 2 + names.get(i).length + 4 + texturesData.get(i).length;
+            }
+
+            KeyIndex tagIndex = new KeyIndex(tags, offset);
+            KeyIndex wordIndex = new KeyIndex(words, tagIndex.end);
+
+            File temp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(heads.size());
+                out.writeInt(tags.size());
+                out.writeInt(words.size());
+
+                int i = 0;
+                for (Integer id : heads.keySet()) {
+                    out.writeInt(id);
+                    out.writeInt(records[i++]);
+                }
+
+                tagIndex.writeEntries(out);
+                wordIndex.writeEntries(out);
+
+                for (i = 0; i < records.length; i++) {
+                    out.writeShort(names.get(i).length);
+                    out.write(names.get(i));
+                    out.writeInt(texturesData.get(i).length);
+                    out.write(texturesData.get(i));
+                }
+
+                tagIndex.writeData(out);
+                wordIndex.writeData(out);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private static void addId(Map<String, List<Integer>> index, String key, int id) {
+            List<Integer> ids = index.computeIfAbsent(key, k -> new ArrayList<>());
+            // A name may repeat a word ("Red Red Wool")
+            if (ids.isEmpty() || ids.get(ids.size() - 1) != id) ids.add(id);
+        }
+
+        /**
+         * Sorted key index (tags or words) with the offsets of its keys and id lists in the data section.
+         */
+        private static final class KeyIndex {
+            private final List<byte[]> keys = new ArrayList<>();
+            private final List<List<Integer>> ids = new ArrayList<>();
+            private final int[] keyOffsets;
+            private final int[] idOffsets;
+            private final int end;
+
+            private KeyIndex(TreeMap<String, List<Integer>> index, int offset) {
+                keyOffsets = new int[index.size()];
+                idOffsets = new int[index.size()];
+
+                int i = 0;
+                for (Map.Entry<String, List<Integer>> entry : index.entrySet()) {
+                    byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    keys.add(key);
+                    ids.add(entry.getValue());
+                    keyOffsets[i] = offset;
+                    offset += 2 + key.length;
+                    idOffsets[i] = offset;
+                    offset += entry.getValue().size() * 4;
+                    i++;
+                }
+                this.end = offset;
+            }
+
+            private void writeEntries(DataOutputStream out) throws IOException {
+                for (int i = 0; i < keys.size(); i++) {
+                    out.writeInt(keyOffsets[i]);
+                    out.writeInt(idOffsets[i]);
+                    out.writeInt(ids.get(i).size());
+                }
+            }
+
+            private void writeData(DataOutputStream out) throws IOException {
+                for (int i = 0; i < keys.size(); i++) {
+                    out.writeShort(keys.get(i).length);
+                    out.write(keys.get(i));
+                    for (int id : ids.get(i)) out.writeInt(id);
+                }
+            }
+        }
+
+        private static final class Head {
+            private final String name;
+            private final String texture;
+            private final Collection<String> tags;
+
+            private Head(String name, String texture, Collection<String> tags) {
+                this.name = name;
+                this.texture = texture;
+                this.tags = tags != null ? tags : Collections.<String>emptyList();
+            }
+        }
+    }
+}
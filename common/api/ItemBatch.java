@@ -0,0 +1,133 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds many items of the same kind in one pass, e.g. the 45 entries of a page.
+ * The meta is looked up once for the material, each item then only applies its own name,
+ * lore and amount on that prototype, instead of going through a new {@link ItemBuilder}.
+ *
+ * <pre>
+ * ItemBatch batch = ItemBatch.of(Material.PAPER, entries.size());
+ * for (int i = 0; i &lt; entries.size(); i++) batch.name(i, "§e" + entries.get(i).getName()).lore(i, entries.get(i).getLore());
+ * ItemStack[] items = batch.build();
+ * </pre>
+ *
+ * Shared settings (flags, enchantments, texture, ...) come from the prototype builder.
+ * A batch is not thread safe, it can be built again after changing some entries.
+ */
+public final class ItemBatch {
+
+    private final ItemStack base;
+    private final ItemMeta meta;
+    private final String baseName;
+    private final List<String> baseLore;
+
+    private final String[] names;
+    private final List<String>[] lores;
+    private final int[] amounts;
+
+    /**
+     * @param prototype Builder holding what every item shares, built once here
+     * @param size      Number of items in the batch
+     */
+    public ItemBatch(ItemBuilder prototype, int size) {
+        this(prototype.build(), size);
+    }
+
+    @SuppressWarnings({"unchecked", "deprecation"})
+    private ItemBatch(ItemStack prototype, int size) {
+        if (size < 0) throw new IllegalArgumentException("Size must not be negative");
+
+        this.base = new ItemStack(prototype.getType(), prototype.getAmount(), prototype.getDurability());
+        this.meta = prototype.getItemMeta();
+        this.baseName = meta != null && meta.hasDisplayName() ? meta.getDisplayName() : null;
+        this.baseLore = meta != null && meta.hasLore() ? meta.getLore() : null;
+
+        this.names = new String[size];
+        this.lores = new List[size];
+        this.amounts = new int[size];
+    }
+
+    public static ItemBatch of(Material material, int size) {
+        return new ItemBatch(new ItemStack(material), size);
+    }
+
+    /**
+     * Batch of a version-neutral {@link ItemSpec}, keeping its legacy data value.
+     */
+    public static ItemBatch of(ItemSpec spec, int size) {
+        return new ItemBatch(spec.create(1), size);
+    }
+
+    /**
+     * Sets the display name of an item, null keeps the prototype name.
+     */
+    public ItemBatch name(int index, String name) {
+        names[index] = name;
+        return this;
+    }
+
+    /**
+     * Sets the lore of an item, null keeps the prototype lore. The list is used as is, not copied.
+     */
+    public ItemBatch lore(int index, List<String> lore) {
+        lores[index] = lore;
+        return this;
+    }
+
+    /**
+     * Sets the amount of an item, 0 keeps the prototype amount.
+     */
+    public ItemBatch amount(int index, int amount) {
+        amounts[index] = amount;
+        return this;
+    }
+
+    public ItemBatch set(int index, String name, List<String> lore) {
+        names[index] = name;
+        lores[index] = lore;
+        return this;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Builds every item of the batch.
+     *
+     * @return New items, in the order of their index
+     */
+    public ItemStack[] build() {
+        ItemStack[] items = new ItemStack[names.length];
+
+        for (int i = 0; i < items.length; i++) {
+            ItemStack item = base.clone();
+            if (amounts[i] > 0) item.setAmount(amounts[i]);
+
+            if (meta != null) {
+                // setItemMeta stores a copy, so the same meta is reused for the next item
+                meta.setDisplayName(names[i] != null ? names[i] : baseName);
+                meta.setLore(lores[i] != null ? lores[i] : baseLore);
+                item.setItemMeta(meta);
+            }
+            items[i] = item;
+        }
+        return items;
+    }
+
+    /**
+     * Clears every per-item change, so the batch can be filled again.
+     */
+    public void reset() {
+        Arrays.fill(names, null);
+        Arrays.fill(lores, null);
+        Arrays.fill(amounts, 0);
+    }
+}
@@ -0,0 +1,108 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps one canonical ItemStack per {@link BuilderSpec}. Menus that build the same item
+ * (borders, fillers, the same entry on many pages, ...) then share a single instance, which saves
+ * heap and makes {@link #isSame(ItemStack, ItemStack)} (and the menu refresh diff) a reference check.
+ * Canonical items are only weakly held, they are dropped once no menu uses them anymore.
+ *
+ * <pre>
+ * private static final ItemInterner ITEMS = new ItemInterner();
+ * ...
+ * addItem(i, ITEMS.intern(new ItemBuilder(Material.STAINED_GLASS_PANE, " ").setDurability((short) 15)));
+ * </pre>
+ *
+ * Interned items are shared, they must not be modified.
+ */
+public class ItemInterner {
+
+    private final Map<BuilderSpec, Entry> canonical = new HashMap<>();
+    private final ReferenceQueue<ItemStack> collected = new ReferenceQueue<>();
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Returns the canonical item for the builder's spec, building it only if none is alive.
+     * The builder should not be reused afterwards.
+     */
+    public synchronized ItemStack intern(ItemBuilder builder) {
+        drain();
+
+        BuilderSpec spec = builder.getSpec();
+        Entry entry = canonical.get(spec);
+        ItemStack item = entry != null ? entry.get() : null;
+
+        if (item != null) {
+            hits++;
+            return item;
+        }
+
+        misses++;
+        item = builder.build();
+        canonical.put(spec, new Entry(spec, item, collected));
+        return item;
+    }
+
+    /**
+     * @return The canonical item of a spec, or null if none is alive
+     */
+    public synchronized ItemStack get(BuilderSpec spec) {
+        drain();
+        Entry entry = canonical.get(spec);
+        return entry != null ? entry.get() : null;
+    }
+
+    /**
+     * Equality check with an O(1) fast path: interned items with the same spec are the same instance.
+     * Falls back to the hash then {@link ItemStack#equals(Object)} for items that were not interned.
+     * This is the check used by the menu refresh diff.
+     */
+    public static boolean isSame(ItemStack a, ItemStack b) {
+        if (a == b) return true;
+        if (a == null || b == null) return false;
+        return a.hashCode() == b.hashCode() && a.equals(b);
+    }
+
+    public synchronized int size() {
+        drain();
+        return canonical.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        canonical.clear();
+    }
+
+    private void drain() {
+        Entry entry;
+        while ((entry = (Entry) collected.poll()) != null) {
+            // A newer item may already be registered under the same spec
+            canonical.remove(entry.spec, entry);
+        }
+    }
+
+    private static final class Entry extends WeakReference<ItemStack> {
+
+        private final BuilderSpec spec;
+
+        private Entry(BuilderSpec spec, ItemStack item, ReferenceQueue<ItemStack> queue) {
+            super(item, queue);
+            this.spec = spec;
+        }
+    }
+}
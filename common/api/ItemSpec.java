@@ -0,0 +1,254 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version-neutral item type, named by its modern key ("lime_stained_glass_pane", "player_head", ...).
+ * Keys are resolved once, when the class loads, into the (Material, data) pair of the running server,
+ * e.g. SKULL_ITEM:3 on 1.8 - 1.12 and PLAYER_HEAD on 1.13+, so a single menu definition works on a
+ * mixed network. Lookups go through a perfect-hash table built from the bundled
+ * {@code /craftkit/items.tsv} resource, without any string matching against Material.
+ *
+ * <pre>
+ * private static final ItemSpec FILLER = ItemSpec.of("gray_stained_glass_pane");
+ * ...
+ * new ItemBuilder(FILLER, " ").build();
+ * </pre>
+ */
+public final class ItemSpec {
+
+    private static final String RESOURCE = "/craftkit/items.tsv";
+    private static final boolean LEGACY = Material.getMaterial("PLAYER_HEAD") == null;
+
+    // Perfect-hash table: a key's bucket gives the seed that places it in its own slot
+    private static String[] keys = new String[0];
+    private static ItemSpec[] specs = new ItemSpec[0];
+    private static int[] seeds = new int[0];
+
+    // Keys missing from the table, resolved by name on first use
+    private static final Map<String, ItemSpec> FALLBACK = new ConcurrentHashMap<>();
+
+    // Table entries by the (Material, data) pair they resolved to, the data value only counts before 1.13
+    private static final Map<Material, Map<Short, ItemSpec>> BY_MATERIAL = new HashMap<>();
+
+    static {
+        load();
+    }
+
+    private final String key;
+    private final Material material;
+    private final short data;
+
+    private ItemSpec(String key, Material material, short data) {
+        this.key = key;
+        this.material = material;
+        this.data = data;
+    }
+
+    /**
+     * @param key Modern item key, case insensitive, with or without the "minecraft:" prefix
+     * @return The resolved item
+     * @throws IllegalArgumentException If the item does not exist on this server version
+     */
+    public static ItemSpec of(String key) {
+        ItemSpec spec = find(key);
+        if (spec == null) throw new IllegalArgumentException("Unknown item '" + key + "' on this server version");
+        return spec;
+    }
+
+    /**
+     * Same as {@link #of}, returning null for unknown items.
+     */
+    public static ItemSpec find(String key) {
+        String normalized = normalize(key);
+
+        if (keys.length > 0) {
+            int slot = slot(normalized, seeds[slot(normalized, 0, seeds.length)], keys.length);
+            if (normalized.equals(keys[slot])) return specs[slot];
+        }
+
+        ItemSpec spec = FALLBACK.get(normalized);
+        if (spec != null) return spec;
+
+        Material material = Material.getMaterial(normalized.toUpperCase(Locale.ROOT));
+        if (material == null) return null;
+
+        spec = new ItemSpec(normalized, material, (short) 0);
+        FALLBACK.put(normalized, spec);
+        return spec;
+    }
+
+    /**
+     * Maps an item of this server back to its modern key, e.g. WOOL:14 to "red_wool" on 1.8 - 1.12.
+     * Items missing from the table are named after their material.
+     *
+     * @param data Legacy data value (durability), ignored on 1.13+
+     * @return The matching item, never null
+     */
+    public static ItemSpec of(Material material, short data) {
+        Map<Short, ItemSpec> entries = BY_MATERIAL.get(material);
+        if (entries != null) {
+            ItemSpec spec = entries.get(LEGACY ? data : (short) 0);
+            // Any other data value of a table material is a damage value, e.g. a used tool
+            if (spec == null) spec = entries.get((short) 0);
+            if (spec != null) return spec;
+        }
+
+        String key = material.name().toLowerCase(Locale.ROOT);
+        ItemSpec spec = find(key);
+        // A legacy name may be the modern key of another item, e.g. GRASS and "grass" (tall grass)
+        return spec != null && spec.material == material ? spec : new ItemSpec(key, material, (short) 0);
+    }
+
+    /**
+     * @return true if an item of this material and data value is this item on the running server
+     */
+    public boolean matches(Material material, short data) {
+        return this.material == material && (!LEGACY || this.data == data);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * @return Legacy data value (durability) of the item, always 0 on 1.13+
+     */
+    public short getData() {
+        return data;
+    }
+
+    @SuppressWarnings("deprecation")
+    public ItemStack create(int amount) {
+        return data == 0 ? new ItemStack(material, amount) : new ItemStack(material, amount, data);
+    }
+
+    private static void load() {
+        List<ItemSpec> resolved = new ArrayList<>();
+
+        try (InputStream in = ItemSpec.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) throw new IllegalStateException("missing resource " + RESOURCE);
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                ItemSpec spec = resolve(line.split("\t"));
+                if (spec == null) continue;
+
+                resolved.add(spec);
+                Map<Short, ItemSpec> entries = BY_MATERIAL.computeIfAbsent(spec.material, material -> new HashMap<>());
+                // Several keys may share a pair (INK_SACK:0 is black_dye and ink_sac), the one named
+                // after the material wins, then the first row
+                if (spec.key.equals(spec.material.name().toLowerCase(Locale.ROOT))) entries.put(spec.data, spec);
+                else entries.putIfAbsent(spec.data, spec);
+            }
+        } catch (Exception e) {
+            JavaPlugin.getProvidingPlugin(ItemSpec.class).getLogger().warning("Could not load item table, items are resolved by name only: " + e.getMessage());
+            return;
+        }
+
+        build(resolved);
+    }
+
+    /**
+     * Resolves a table row for the running version, or returns null if the item doesn't exist on it.
+     */
+    private static ItemSpec resolve(String[] row) {
+        String key = row[0];
+        if (LEGACY) {
+            Material material = Material.getMaterial(row[1]);
+            return material != null ? new ItemSpec(key, material, Short.parseShort(row[2])) : null;
+        }
+
+        Material material = Material.getMaterial(key.toUpperCase(Locale.ROOT));
+        if (material == null && row.length > 3) material = Material.getMaterial(row[3]);
+        return material != null ? new ItemSpec(key, material, (short) 0) : null;
+    }
+
+    /**
+     * Builds a minimal perfect hash (hash and displace): keys are grouped in buckets, and each
+     * bucket, largest first, gets the first seed placing all its keys in free slots.
+     */
+    private static void build(List<ItemSpec> resolved) {
+        int size = resolved.size();
+        if (size == 0) return;
+
+        List<List<ItemSpec>> buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) buckets.add(new ArrayList<>());
+        for (ItemSpec spec : resolved) buckets.get(slot(spec.key, 0, size)).add(spec);
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        String[] tableKeys = new String[size];
+        ItemSpec[] tableSpecs = new ItemSpec[size];
+        int[] tableSeeds = new int[size];
+
+        for (int bucket : order) {
+            List<ItemSpec> entries = buckets.get(bucket);
+            if (entries.isEmpty()) break;
+
+            int[] slots = new int[entries.size()];
+            for (int seed = 1; ; seed++) {
+                if (placeable(entries, seed, tableKeys, slots)) {
+                    for (int i = 0; i < slots.length; i++) {
+                        tableKeys[slots[i]] = entries.get(i).key;
+                        tableSpecs[slots[i]] = entries.get(i);
+                    }
+                    tableSeeds[bucket] = seed;
+                    break;
+                }
+            }
+        }
+
+        keys = tableKeys;
+        specs = tableSpecs;
+        seeds = tableSeeds;
+    }
+
+    private static boolean placeable(List<ItemSpec> entries, int seed, String[] table, int[] slots) {
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slot(entries.get(i).key, seed, table.length);
+            if (table[slot] != null) return false;
+            for (int j = 0; j < i; j++) if (slots[j] == slot) return false;
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    private static int slot(String key, int seed, int size) {
+        int hash = key.hashCode() ^ (seed * 0x9E3779B9);
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return (hash & 0x7FFFFFFF) % size;
+    }
+
+    private static String normalize(String key) {
+        String normalized = key.toLowerCase(Locale.ROOT);
+        return normalized.startsWith("minecraft:") ? normalized.substring(10) : normalized;
+    }
+}
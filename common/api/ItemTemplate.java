@@ -0,0 +1,51 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Immutable, pre-built item. The meta is constructed a single time when the template is
+ * created, so menus placing the same icon many times only pay for a clone per copy.
+ *
+ * <pre>
+ * private static final ItemTemplate FILLER = new ItemBuilder(Material.GLASS_PANE, " ").toTemplate();
+ * ...
+ * addItem(slot, FILLER.create());
+ * </pre>
+ */
+public final class ItemTemplate {
+
+    private final ItemStack prototype;
+
+    ItemTemplate(ItemStack item) {
+        // Own copy, so later changes to the builder's stack never leak into the template
+        this.prototype = item.clone();
+    }
+
+    /**
+     * Creates a template from an existing item.
+     */
+    public static ItemTemplate of(ItemStack item) {
+        return new ItemTemplate(item);
+    }
+
+    /**
+     * @return A fresh copy of the prototype, free to be modified
+     */
+    public ItemStack create() {
+        return prototype.clone();
+    }
+
+    /**
+     * @return A fresh copy of the prototype with the given amount
+     */
+    public ItemStack create(int amount) {
+        ItemStack item = prototype.clone();
+        item.setAmount(amount);
+        return item;
+    }
+
+    public Material getType() {
+        return prototype.getType();
+    }
+}
@@ -0,0 +1,161 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Lore lines with {@code %placeholder%} parts, split once into literal and placeholder segments.
+ * Literal parts are colour-translated ('&amp;' codes) at compile time, rendering only appends
+ * the segments and the resolved values into a reused StringBuilder.
+ *
+ * <pre>
+ * private static final LoreTemplate PROFILE_LORE = LoreTemplate.compile(
+ *         "&amp;7Balance: &amp;e%balance%",
+ *         "&amp;7Rank: %rank%");
+ * ...
+ * builder.setLore(PROFILE_LORE, key -> placeholders.resolve(player, key));
+ * </pre>
+ *
+ * Resolved values are inserted as they are, a placeholder resolved to null is left untouched.
+ * Templates are immutable and can be shared between menus and threads.
+ */
+public final class LoreTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    // Per line: literals[i].length == keys[i].length + 1, a line is literal0 key0 literal1 ... literalN
+    private final String[][] literals;
+    private final String[][] keys;
+    private final boolean dynamic;
+
+    private LoreTemplate(String[][] literals, String[][] keys) {
+        this.literals = literals;
+        this.keys = keys;
+
+        boolean dynamic = false;
+        for (String[] line : keys) dynamic |= line.length > 0;
+        this.dynamic = dynamic;
+    }
+
+    public static LoreTemplate compile(String... lines) {
+        return compile(Arrays.asList(lines));
+    }
+
+    /**
+     * @param lines Raw lore lines, with '&amp;' colour codes and {@code %placeholder%} parts
+     * @return The compiled template
+     */
+    public static LoreTemplate compile(List<String> lines) {
+        String[][] literals = new String[lines.size()][];
+        String[][] keys = new String[lines.size()][];
+
+        List<String> lineLiterals = new ArrayList<>();
+        List<String> lineKeys = new ArrayList<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int start = 0;
+            int open = line.indexOf('%');
+
+            while (open >= 0) {
+                int close = line.indexOf('%', open + 1);
+                if (close < 0) break;
+
+                if (!isKey(line, open + 1, close)) {
+                    // Not a placeholder (e.g. "50% off"), the second '%' may open the next one
+                    open = close;
+                    continue;
+                }
+
+                lineLiterals.add(translate(line.substring(start, open)));
+                lineKeys.add(line.substring(open + 1, close));
+                start = close + 1;
+                open = line.indexOf('%', start);
+            }
+            lineLiterals.add(translate(line.substring(start)));
+
+            literals[i] = lineLiterals.toArray(new String[0]);
+            keys[i] = lineKeys.toArray(new String[0]);
+            lineLiterals.clear();
+            lineKeys.clear();
+        }
+        return new LoreTemplate(literals, keys);
+    }
+
+    private static boolean isKey(String line, int from, int to) {
+        if (from == to) return false;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.' && c != ':') return false;
+        }
+        return true;
+    }
+
+    private static String translate(String literal) {
+        return literal.indexOf('&') < 0 ? literal : ChatColor.translateAlternateColorCodes('&', literal);
+    }
+
+    /**
+     * Renders every line, resolving placeholders with the given function.
+     *
+     * @param resolver Maps a placeholder name (without the '%') to its value, or null to leave it as is
+     * @return A new mutable list with the rendered lines
+     */
+    public List<String> render(Function<String, String> resolver) {
+        return render(resolver, (function, key) -> function.apply(key));
+    }
+
+    /**
+     * Same as {@link #render(Function)} with a resolver receiving the viewer, so a single
+     * resolver instance can be shared instead of capturing the viewer in a lambda per render.
+     */
+    public <T> List<String> render(T viewer, BiFunction<? super T, String, String> resolver) {
+        List<String> lines = new ArrayList<>(literals.length);
+        StringBuilder buffer = BUFFER.get();
+
+        for (int i = 0; i < literals.length; i++) {
+            String[] lineLiterals = literals[i];
+            String[] lineKeys = keys[i];
+
+            if (lineKeys.length == 0) {
+                lines.add(lineLiterals[0]);
+                continue;
+            }
+
+            buffer.setLength(0);
+            for (int j = 0; j < lineKeys.length; j++) {
+                buffer.append(lineLiterals[j]);
+
+                String value = resolver.apply(viewer, lineKeys[j]);
+                if (value != null) buffer.append(value);
+                else buffer.append('%').append(lineKeys[j]).append('%');
+            }
+            lines.add(buffer.append(lineLiterals[lineKeys.length]).toString());
+        }
+        return lines;
+    }
+
+    /**
+     * @return The placeholder names used by a line, in order
+     */
+    public List<String> getPlaceholders(int line) {
+        return Collections.unmodifiableList(Arrays.asList(keys[line]));
+    }
+
+    public int size() {
+        return literals.length;
+    }
+
+    /**
+     * @return false if no line has a placeholder, the rendered lore then never changes
+     */
+    public boolean isDynamic() {
+        return dynamic;
+    }
+}
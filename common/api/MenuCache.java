@@ -0,0 +1,189 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in cache of rendered menu instances, keyed by player and menu key.
+ * Reopening a cached menu reuses its inventory and only refreshes its dynamic slots
+ * (see {@link InventoryBuilder#createDynamicItems}), instead of creating and rendering a new Inventory every time.
+ * Entries are evicted in LRU order once a per-player or global limit is reached,
+ * and dropped automatically when the player quits. Must be used from the main thread.
+ *
+ * <pre>
+ * private static final MenuCache CACHE = new MenuCache(4, 500);
+ * ...
+ * CACHE.open(player, "profile", () -> new ProfileMenu(player));
+ * </pre>
+ */
+public class MenuCache implements Listener {
+
+    private final int maxPerPlayer;
+    private final int maxTotal;
+    private final LinkedHashMap<Key, InventoryBuilder> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<UUID, Integer> counts = new HashMap<>();
+
+    /**
+     * @param maxPerPlayer Maximum number of cached menus for a single player
+     * @param maxTotal     Maximum number of cached menus overall
+     */
+    public MenuCache(int maxPerPlayer, int maxTotal) {
+        this.maxPerPlayer = maxPerPlayer;
+        this.maxTotal = maxTotal;
+
+        Bukkit.getPluginManager().registerEvents(this, JavaPlugin.getProvidingPlugin(MenuCache.class));
+    }
+
+    /**
+     * Opens a menu, reusing the cached instance if there is one.
+     *
+     * @param player  The player opening the menu
+     * @param key     Identifies the menu (e.g. "profile", "settings")
+     * @param factory Creates the menu when it is not cached yet
+     * @return The menu instance that was opened
+     */
+    public InventoryBuilder open(Player player, String key, Supplier<? extends InventoryBuilder> factory) {
+        Key cacheKey = new Key(player.getUniqueId(), key);
+        InventoryBuilder menu = entries.get(cacheKey);
+
+        if (menu != null) {
+            menu.reopen();
+            return menu;
+        }
+
+        menu = factory.get();
+        menu.setRetained(true);
+        entries.put(cacheKey, menu);
+        counts.merge(cacheKey.player, 1, Integer::sum);
+        evict(cacheKey.player);
+
+        menu.open();
+        return menu;
+    }
+
+    /**
+     * @return The cached menu, or null if there is none
+     */
+    public InventoryBuilder get(UUID player, String key) {
+        return entries.get(new Key(player, key));
+    }
+
+    /**
+     * Drops one cached menu, e.g. after its underlying data changed.
+     */
+    public void invalidate(UUID player, String key) {
+        InventoryBuilder menu = entries.remove(new Key(player, key));
+        if (menu != null) release(player, menu);
+    }
+
+    /**
+     * Drops every cached menu of a player.
+     */
+    public void invalidate(UUID player) {
+        invalidateIf(key -> key.player.equals(player));
+    }
+
+    /**
+     * Drops a menu for every player, e.g. after a shop layout changed.
+     */
+    public void invalidateKey(String key) {
+        invalidateIf(entry -> entry.key.equals(key));
+    }
+
+    /**
+     * Drops every cached menu.
+     */
+    public void invalidateAll() {
+        invalidateIf(key -> true);
+    }
+
+    /**
+     * @return Number of cached menus
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    private void invalidateIf(Predicate<Key> filter) {
+        List<Map.Entry<Key, InventoryBuilder>> removed = new ArrayList<>();
+        for (Iterator<Map.Entry<Key, InventoryBuilder>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, InventoryBuilder> entry = it.next();
+            if (!filter.test(entry.getKey())) continue;
+            removed.add(entry);
+            it.remove();
+        }
+        for (Map.Entry<Key, InventoryBuilder> entry : removed) release(entry.getKey().player, entry.getValue());
+    }
+
+    private void evict(UUID player) {
+        if (counts.get(player) > maxPerPlayer) {
+            for (Iterator<Map.Entry<Key, InventoryBuilder>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Key, InventoryBuilder> eldest = it.next();
+                if (!eldest.getKey().player.equals(player)) continue;
+                it.remove();
+                release(player, eldest.getValue());
+                break;
+            }
+        }
+
+        while (entries.size() > maxTotal) {
+            Iterator<Map.Entry<Key, InventoryBuilder>> it = entries.entrySet().iterator();
+            Map.Entry<Key, InventoryBuilder> eldest = it.next();
+            it.remove();
+            release(eldest.getKey().player, eldest.getValue());
+        }
+    }
+
+    private void release(UUID player, InventoryBuilder menu) {
+        counts.computeIfPresent(player, (uuid, count) -> count > 1 ? count - 1 : null);
+        menu.setRetained(false);
+
+        // A menu still on screen is released by its own close listener
+        if (!menu.getPlayer().getOpenInventory().getTopInventory().equals(menu.getInventory(menu.getPlayer()))) {
+            menu.reset();
+        }
+    }
+
+    private static final class Key {
+        private final UUID player;
+        private final String key;
+
+        private Key(UUID player, String key) {
+            this.player = player;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return player.equals(other.player) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(player, key);
+        }
+    }
+}
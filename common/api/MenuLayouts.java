@@ -0,0 +1,159 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry of {@link MenuTemplate}s loaded from a folder of {@code .yml}, {@code .yaml} and {@code .json} files.
+ * JSON files go through the same parser, as JSON is valid YAML flow syntax.
+ * With {@link #watch()}, edited files are recompiled on a background thread and swapped in atomically:
+ * the main thread never waits on a reload, and menus already open keep the template they were built with.
+ */
+public class MenuLayouts implements Closeable {
+
+    private final File directory;
+    private final AtomicReference<Map<String, MenuTemplate>> templates = new AtomicReference<>(Collections.emptyMap());
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Loads every layout of the folder.
+     *
+     * @param directory Folder containing the layout files
+     */
+    public MenuLayouts(File directory) {
+        this.directory = directory;
+        reload();
+    }
+
+    /**
+     * @param id Name of the layout file, without its extension
+     * @return The latest compiled template, or null if there is none
+     */
+    public MenuTemplate get(String id) {
+        return templates.get().get(id);
+    }
+
+    /**
+     * @return Ids of every loaded layout
+     */
+    public Set<String> getIds() {
+        return templates.get().keySet();
+    }
+
+    /**
+     * Recompiles every layout. A file that fails to compile keeps its previous template.
+     */
+    public void reload() {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        Set<Path> paths = new HashSet<>();
+        for (File file : files) paths.add(file.toPath());
+        apply(paths);
+    }
+
+    /**
+     * Starts watching the folder for changes on a daemon thread.
+     */
+    public synchronized void watch() throws IOException {
+        if (watcher != null) return;
+
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.toPath().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        watcher = new Thread(this::watchLoop, "CraftKit-MenuLayouts-Watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the folder.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) watchService.close();
+        watchService = null;
+        watcher = null;
+    }
+
+    private void watchLoop() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Set<Path> changed = new HashSet<>();
+
+                // Editors often write a file in several steps, batch what arrives in a short window
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+                        changed.add(directory.toPath().resolve((Path) event.context()));
+                    }
+                    key.reset();
+                    key = service.poll(200, TimeUnit.MILLISECONDS);
+                }
+
+                apply(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher stopped
+        }
+    }
+
+    private synchronized void apply(Set<Path> paths) {
+        Map<String, MenuTemplate> next = new HashMap<>(templates.get());
+
+        for (Path path : paths) {
+            String id = idOf(path);
+            if (id == null) continue;
+
+            if (!Files.exists(path)) {
+                next.remove(id);
+                continue;
+            }
+
+            try {
+                YamlConfiguration config = new YamlConfiguration();
+                config.loadFromString(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+                next.put(id, MenuTemplate.compile(id, config));
+            } catch (Exception e) {
+                JavaPlugin.getProvidingPlugin(MenuLayouts.class).getLogger().warning("Could not load menu layout " + path.getFileName() + ": " + e.getMessage());
+            }
+        }
+
+        templates.set(Collections.unmodifiableMap(next));
+    }
+
+    private static String idOf(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot <= 0) return null;
+
+        String extension = name.substring(dot + 1).toLowerCase();
+        if (!extension.equals("yml") && !extension.equals("yaml") && !extension.equals("json")) return null;
+        return name.substring(0, dot);
+    }
+}
@@ -0,0 +1,232 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Renders menus ahead of time so their first open feels instant.
+ * Menus are prewarmed on join or when the player holds the item that opens them, kept for
+ * a short time, and consumed by the next {@link #open} on the main thread without any render.
+ * Renders that were not opened in time are released by a sweep, with their animations.
+ * Must be used from the main thread.
+ *
+ * <pre>
+ * private static final MenuPrewarmer PREWARMER = new MenuPrewarmer(10, TimeUnit.SECONDS)
+ *         .register("profile", ProfileMenu::new)
+ *         .prewarmOnHold("profile", item -&gt; item.getType() == Material.COMPASS);
+ * ...
+ * PREWARMER.open(player, "profile");
+ * </pre>
+ */
+public class MenuPrewarmer implements Listener {
+
+    private final long ttlNanos;
+    private final long sweepTicks;
+    private final Map<String, Function<Player, ? extends InventoryBuilder>> factories = new HashMap<>();
+    private final Set<String> joinKeys = new LinkedHashSet<>();
+    private final Map<String, Predicate<ItemStack>> holdKeys = new LinkedHashMap<>();
+    private final Map<UUID, Map<String, Entry>> warm = new HashMap<>();
+
+    private BukkitTask sweepTask;
+
+    /**
+     * @param ttl  How long a prewarmed menu stays valid
+     * @param unit Unit of the ttl
+     */
+    public MenuPrewarmer(long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+        // Expired renders live at most one extra period, checked at least every second
+        this.sweepTicks = Math.max(20, unit.toMillis(ttl) / 50);
+
+        Bukkit.getPluginManager().registerEvents(this, JavaPlugin.getProvidingPlugin(MenuPrewarmer.class));
+    }
+
+    /**
+     * Registers how a menu is created.
+     *
+     * @param key     Identifies the menu (e.g. "profile", "shop")
+     * @param factory Creates the menu for a player
+     * @return this prewarmer
+     */
+    public MenuPrewarmer register(String key, Function<Player, ? extends InventoryBuilder> factory) {
+        factories.put(key, factory);
+        return this;
+    }
+
+    /**
+     * Prewarms a menu for every player joining the server.
+     */
+    public MenuPrewarmer prewarmOnJoin(String key) {
+        joinKeys.add(key);
+        return this;
+    }
+
+    /**
+     * Prewarms a menu when the player switches to an item of the hotbar that opens it.
+     *
+     * @param key  Registered menu key
+     * @param item Matches the item opening the menu
+     * @return this prewarmer
+     */
+    public MenuPrewarmer prewarmOnHold(String key, Predicate<ItemStack> item) {
+        holdKeys.put(key, item);
+        return this;
+    }
+
+    /**
+     * Renders a menu for a player ahead of time. Does nothing if a valid render is already waiting.
+     *
+     * @param player The player who will open the menu
+     * @param key    Registered menu key
+     */
+    public void prewarm(Player player, String key) {
+        Map<String, Entry> entries = warm.computeIfAbsent(player.getUniqueId(), uuid -> new HashMap<>());
+        expire(entries);
+        if (entries.containsKey(key)) return;
+
+        InventoryBuilder menu = factory(key).apply(player);
+        entries.put(key, new Entry(menu, System.nanoTime() + ttlNanos));
+        menu.prewarm();
+
+        if (sweepTask == null) {
+            sweepTask = Bukkit.getScheduler().runTaskTimer(JavaPlugin.getProvidingPlugin(MenuPrewarmer.class), this::sweep, sweepTicks, sweepTicks);
+        }
+    }
+
+    /**
+     * Opens a menu, using its prewarmed render if there is a valid one.
+     *
+     * @param player The player opening the menu
+     * @param key    Registered menu key
+     * @return The menu instance that was opened
+     */
+    public InventoryBuilder open(Player player, String key) {
+        Map<String, Entry> entries = warm.get(player.getUniqueId());
+        Entry entry = entries != null ? entries.remove(key) : null;
+        if (entries != null && entries.isEmpty()) warm.remove(player.getUniqueId());
+
+        InventoryBuilder menu;
+        if (entry != null && !entry.isExpired()) {
+            menu = entry.menu;
+        } else {
+            if (entry != null) entry.menu.reset();
+            menu = factory(key).apply(player);
+        }
+
+        menu.open();
+        return menu;
+    }
+
+    /**
+     * Drops the prewarmed menus of a player.
+     */
+    public void invalidate(UUID player) {
+        Map<String, Entry> entries = warm.remove(player);
+        if (entries != null) entries.values().forEach(entry -> entry.menu.reset());
+    }
+
+    /**
+     * Drops a prewarmed menu for every player, e.g. after its underlying data changed.
+     */
+    public void invalidateKey(String key) {
+        for (Iterator<Map<String, Entry>> it = warm.values().iterator(); it.hasNext(); ) {
+            Map<String, Entry> entries = it.next();
+            Entry entry = entries.remove(key);
+            if (entry != null) entry.menu.reset();
+            if (entries.isEmpty()) it.remove();
+        }
+    }
+
+    /**
+     * @return Number of prewarmed menus waiting to be opened
+     */
+    public int size() {
+        int count = 0;
+        for (Map<String, Entry> entries : warm.values()) count += entries.size();
+        return count;
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        for (String key : joinKeys) prewarm(event.getPlayer(), key);
+    }
+
+    @EventHandler
+    public void onHeld(PlayerItemHeldEvent event) {
+        ItemStack item = event.getPlayer().getInventory().getItem(event.getNewSlot());
+        if (item == null) return;
+
+        for (Map.Entry<String, Predicate<ItemStack>> hold : holdKeys.entrySet()) {
+            if (hold.getValue().test(item)) prewarm(event.getPlayer(), hold.getKey());
+        }
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    private Function<Player, ? extends InventoryBuilder> factory(String key) {
+        Function<Player, ? extends InventoryBuilder> factory = factories.get(key);
+        if (factory == null) throw new IllegalArgumentException("Unknown menu: " + key);
+        return factory;
+    }
+
+    /**
+     * Releases every expired render, stops once nothing is waiting anymore.
+     */
+    private void sweep() {
+        for (Iterator<Map<String, Entry>> it = warm.values().iterator(); it.hasNext(); ) {
+            Map<String, Entry> entries = it.next();
+            expire(entries);
+            if (entries.isEmpty()) it.remove();
+        }
+
+        if (warm.isEmpty() && sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+    }
+
+    private void expire(Map<String, Entry> entries) {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (!entry.isExpired()) continue;
+            it.remove();
+            entry.menu.reset();
+        }
+    }
+
+    private static final class Entry {
+        private final InventoryBuilder menu;
+        private final long expiresAt;
+
+        private Entry(InventoryBuilder menu, long expiresAt) {
+            this.menu = menu;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
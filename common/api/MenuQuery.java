@@ -0,0 +1,352 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+/**
+ * Indexed data source for sortable and filterable menus (auction houses, shops, ...).
+ * Keeps one pre-sorted index per sort key and one bitset per category. Inserts and removes are
+ * merged into the indexes by the next query, on a ForkJoin pool like the query itself, so bulk
+ * loads stay cheap and only the final page is handed back to the main thread for rendering.
+ *
+ * <pre>
+ * query.query("price", false, Collections.singleton("weapons"), page, 45).thenAccept(result -> {
+ *     for (int i = 0; i &lt; result.getItems().size(); i++) addItem(i, toIcon(result.getItems().get(i)));
+ * });
+ * </pre>
+ *
+ * @param <T> Type of the entries listed in the menu
+ */
+public class MenuQuery<T> {
+
+    private final Map<String, Comparator<? super T>> sortKeys = new LinkedHashMap<>();
+    private final Map<String, Predicate<? super T>> categories = new LinkedHashMap<>();
+    private final Map<T, Integer> ids = new HashMap<>();
+    private final Executor executor;
+    private final Executor mainThread;
+
+    // Mutable state, only touched while holding the lock
+    private Object[] entries = new Object[16];
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> filters = new HashMap<>();
+    // Changes since the last published snapshot, merged into the sort indexes on the next read
+    private final BitSet added = new BitSet();
+    private final BitSet removed = new BitSet();
+
+    // Immutable state published on read after a mutation, so queries never need a lock.
+    // Each publication is chained on the previous one, the merge itself runs on the executor
+    private volatile CompletableFuture<Snapshot<T>> published =
+            CompletableFuture.completedFuture(new Snapshot<>(new Object[0], new BitSet(), new HashMap<>(), new HashMap<>()));
+    private volatile boolean dirty;
+
+    public MenuQuery() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool Pool used to evaluate queries off the main thread
+     */
+    public MenuQuery(ForkJoinPool pool) {
+        this.executor = pool;
+        JavaPlugin plugin = JavaPlugin.getProvidingPlugin(MenuQuery.class);
+        this.mainThread = task -> Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    /**
+     * Registers a sort key. Existing entries are indexed immediately, on the calling thread.
+     *
+     * @param key        Name of the sort key (e.g. "price")
+     * @param comparator Ascending order for this key
+     * @return this query
+     */
+    public synchronized MenuQuery<T> sortBy(String key, Comparator<? super T> comparator) {
+        Snapshot<T> current = publishChanges().join();
+        sortKeys.put(key, comparator);
+
+        Map<String, int[]> sorted = new HashMap<>(current.sorted);
+        sorted.put(key, buildIndex(current, comparator));
+        published = CompletableFuture.completedFuture(new Snapshot<>(current.entries, current.live, sorted, current.filters));
+        return this;
+    }
+
+    /**
+     * Registers a category filter. Existing entries are indexed immediately, on the calling thread.
+     *
+     * @param category  Name of the category (e.g. "weapons")
+     * @param predicate Returns true for entries belonging to the category
+     * @return this query
+     */
+    public synchronized MenuQuery<T> filterBy(String category, Predicate<? super T> predicate) {
+        Snapshot<T> current = publishChanges().join();
+        categories.put(category, predicate);
+
+        BitSet bits = new BitSet(current.entries.length);
+        for (int id = current.live.nextSetBit(0); id >= 0; id = current.live.nextSetBit(id + 1)) {
+            if (predicate.test(current.get(id))) bits.set(id);
+        }
+        filters.put(category, bits);
+
+        Map<String, BitSet> published = new HashMap<>(current.filters);
+        published.put(category, (BitSet) bits.clone());
+        this.published = CompletableFuture.completedFuture(new Snapshot<>(current.entries, current.live, current.sorted, published));
+        return this;
+    }
+
+    /**
+     * Adds an entry. An entry whose sort fields change must be removed and inserted again.
+     * Indexes are only rebuilt on the next query, so bulk loads stay linear.
+     *
+     * @param entry Entry to add
+     * @return false if the entry was already present
+     */
+    public synchronized boolean insert(T entry) {
+        if (ids.containsKey(entry)) return false;
+
+        int id = live.nextClearBit(0);
+        if (id >= entries.length) entries = Arrays.copyOf(entries, entries.length * 2);
+        entries[id] = entry;
+        live.set(id);
+        added.set(id);
+
+        for (Map.Entry<String, Predicate<? super T>> category : categories.entrySet()) {
+            if (category.getValue().test(entry)) filters.get(category.getKey()).set(id);
+        }
+
+        ids.put(entry, id);
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Adds several entries, see {@link #insert}.
+     *
+     * @return Number of entries that were not already present
+     */
+    public synchronized int insertAll(Collection<? extends T> entries) {
+        int count = 0;
+        for (T entry : entries) {
+            if (insert(entry)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param entry Entry to remove
+     * @return false if the entry was not present
+     */
+    public synchronized boolean remove(T entry) {
+        Integer id = ids.remove(entry);
+        if (id == null) return false;
+
+        entries[id] = null;
+        live.clear(id);
+        for (BitSet bits : filters.values()) bits.clear(id);
+
+        // An id added since the last snapshot is not in its indexes, nothing to remove there
+        if (added.get(id)) added.clear(id);
+        else removed.set(id);
+
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * @return Number of entries currently indexed
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * Evaluates a query off the main thread. The returned future completes on the main thread,
+     * so the page can be rendered directly with {@code addItem}.
+     *
+     * @param sortKey    Registered sort key, or null to keep insertion order
+     * @param descending Reverse the order of the sort key
+     * @param filters    Categories the entries must all belong to (can be empty)
+     * @param page       Zero-based page index
+     * @param pageSize   Number of entries per page
+     * @return Future of the requested page
+     */
+    public CompletableFuture<Page<T>> query(String sortKey, boolean descending, Collection<String> filters, int page, int pageSize) {
+        CompletableFuture<Snapshot<T>> current = dirty ? publishChanges() : published;
+
+        return current.thenApplyAsync(snapshot -> evaluate(snapshot, sortKey, descending, filters, page, pageSize), executor)
+                .thenApplyAsync(result -> result, mainThread);
+    }
+
+    /**
+     * Takes the pending changes and schedules their merge after the previous publication.
+     * Only copies are made here, under the lock, the indexes are merged on the executor.
+     */
+    private synchronized CompletableFuture<Snapshot<T>> publishChanges() {
+        if (!dirty) return published;
+
+        Snapshot<T> next = new Snapshot<>(Arrays.copyOf(entries, entries.length), (BitSet) live.clone(), new HashMap<>(), new HashMap<>());
+        for (Map.Entry<String, BitSet> filter : filters.entrySet()) next.filters.put(filter.getKey(), (BitSet) filter.getValue().clone());
+
+        BitSet newIds = (BitSet) added.clone();
+        BitSet oldIds = (BitSet) removed.clone();
+        Map<String, Comparator<? super T>> keys = new LinkedHashMap<>(sortKeys);
+        added.clear();
+        removed.clear();
+        dirty = false;
+
+        published = published.thenApplyAsync(previous -> merge(previous, next, newIds, oldIds, keys), executor);
+        return published;
+    }
+
+    /**
+     * Fills the sort indexes of the next snapshot: surviving ids of each previous index are merged
+     * with the sorted new ids, in O(n + k log k) for k changes instead of one array copy per insert.
+     */
+    private Snapshot<T> merge(Snapshot<T> previous, Snapshot<T> next, BitSet added, BitSet removed, Map<String, Comparator<? super T>> sortKeys) {
+        for (Map.Entry<String, Comparator<? super T>> sortKey : sortKeys.entrySet()) {
+            int[] index = previous.sorted.get(sortKey.getKey());
+            int[] fresh = sortIds(next, added, sortKey.getValue());
+            int[] merged = new int[next.live.cardinality()];
+
+            int i = 0, j = 0, k = 0;
+            while (i < index.length || j < fresh.length) {
+                if (i < index.length && removed.get(index[i])) {
+                    i++;
+                } else if (j >= fresh.length || (i < index.length && compare(next, index[i], fresh[j], sortKey.getValue()) < 0)) {
+                    merged[k++] = index[i++];
+                } else {
+                    merged[k++] = fresh[j++];
+                }
+            }
+            next.sorted.put(sortKey.getKey(), merged);
+        }
+        return next;
+    }
+
+    private Page<T> evaluate(Snapshot<T> current, String sortKey, boolean descending, Collection<String> filters, int page, int pageSize) {
+        BitSet mask = current.live;
+        if (filters != null && !filters.isEmpty()) {
+            mask = (BitSet) mask.clone();
+            for (String category : filters) {
+                BitSet bits = current.filters.get(category);
+                if (bits == null) throw new IllegalArgumentException("Unknown category: " + category);
+                mask.and(bits);
+            }
+        }
+
+        int total = mask.cardinality();
+        int skip = page * pageSize;
+        List<T> items = new ArrayList<>(Math.min(pageSize, Math.max(0, total - skip)));
+
+        if (sortKey == null) {
+            for (int id = mask.nextSetBit(0); id >= 0 && items.size() < pageSize; id = mask.nextSetBit(id + 1)) {
+                if (skip-- <= 0) items.add(current.get(id));
+            }
+        } else {
+            int[] index = current.sorted.get(sortKey);
+            if (index == null) throw new IllegalArgumentException("Unknown sort key: " + sortKey);
+
+            for (int i = 0; i < index.length && items.size() < pageSize; i++) {
+                int id = index[descending ? index.length - 1 - i : i];
+                if (mask.get(id) && skip-- <= 0) items.add(current.get(id));
+            }
+        }
+
+        return new Page<>(Collections.unmodifiableList(items), page, pageSize, total);
+    }
+
+    private int[] buildIndex(Snapshot<T> current, Comparator<? super T> comparator) {
+        return sortIds(current, current.live, comparator);
+    }
+
+    private int[] sortIds(Snapshot<T> current, BitSet idSet, Comparator<? super T> comparator) {
+        Integer[] boxed = new Integer[idSet.cardinality()];
+        int i = 0;
+        for (int id = idSet.nextSetBit(0); id >= 0; id = idSet.nextSetBit(id + 1)) boxed[i++] = id;
+
+        Arrays.sort(boxed, (a, b) -> compare(current, a, b, comparator));
+        int[] index = new int[boxed.length];
+        for (i = 0; i < boxed.length; i++) index[i] = boxed[i];
+        return index;
+    }
+
+    private int compare(Snapshot<T> current, int a, int b, Comparator<? super T> comparator) {
+        int cmp = comparator.compare(current.get(a), current.get(b));
+        return cmp != 0 ? cmp : Integer.compare(a, b);
+    }
+
+    private static final class Snapshot<T> {
+        private final Object[] entries;
+        private final BitSet live;
+        private final Map<String, int[]> sorted;
+        private final Map<String, BitSet> filters;
+
+        private Snapshot(Object[] entries, BitSet live, Map<String, int[]> sorted, Map<String, BitSet> filters) {
+            this.entries = entries;
+            this.live = live;
+            this.sorted = sorted;
+            this.filters = filters;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int id) {
+            return (T) entries[id];
+        }
+    }
+
+    /**
+     * One page of query results.
+     */
+    public static final class Page<T> {
+        private final List<T> items;
+        private final int page;
+        private final int pageSize;
+        private final int total;
+
+        private Page(List<T> items, int page, int pageSize, int total) {
+            this.items = items;
+            this.page = page;
+            this.pageSize = pageSize;
+            this.total = total;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public int getPageCount() {
+            return pageSize <= 0 ? 0 : (total + pageSize - 1) / pageSize;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public boolean hasNext() {
+            return page + 1 < getPageCount();
+        }
+
+        public boolean hasPrevious() {
+            return page > 0;
+        }
+    }
+}
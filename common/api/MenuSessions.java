@@ -0,0 +1,171 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registry of the menus currently listening for events, keyed by player UUID.
+ * A listening menu is strongly held by Bukkit's HandlerList and can never be collected on its own,
+ * so a periodic sweep releases menus left behind by a missed close (plugin-forced inventory switch,
+ * teleport, quit, ...) to keep memory flat over long uptimes. Must only be used from the main thread.
+ */
+public final class MenuSessions {
+
+    // A session must look stale on two sweeps in a row before it is released
+    private static final long SWEEP_PERIOD = 20L * 30;
+
+    private static final Map<UUID, List<Session>> SESSIONS = new HashMap<>();
+
+    private static BukkitTask task;
+    private static long released;
+
+    private MenuSessions() {
+    }
+
+    static void register(UUID player, InventoryBuilder menu) {
+        SESSIONS.computeIfAbsent(player, uuid -> new ArrayList<>()).add(new Session(menu));
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(JavaPlugin.getProvidingPlugin(MenuSessions.class), MenuSessions::sweep, SWEEP_PERIOD, SWEEP_PERIOD);
+        }
+    }
+
+    static void unregister(UUID player, InventoryBuilder menu) {
+        List<Session> sessions = SESSIONS.get(player);
+        if (sessions == null) return;
+
+        sessions.removeIf(session -> session.menu == menu);
+        if (sessions.isEmpty()) SESSIONS.remove(player);
+    }
+
+    /**
+     * @return Number of menus currently registered
+     */
+    public static int size() {
+        int count = 0;
+        for (List<Session> sessions : SESSIONS.values()) count += sessions.size();
+        return count;
+    }
+
+    /**
+     * Counts the registered menus without releasing anything.
+     *
+     * @return Snapshot of the registry
+     */
+    public static Report report() {
+        int active = 0;
+        int offline = 0;
+        int closed = 0;
+
+        for (List<Session> sessions : SESSIONS.values()) {
+            for (Session session : sessions) {
+                InventoryBuilder menu = session.menu;
+                if (!menu.getPlayer().isOnline()) offline++;
+                else if (menu.isStale()) closed++;
+                else active++;
+            }
+        }
+        return new Report(active, offline, closed, released);
+    }
+
+    /**
+     * Releases the menus that stayed stale since the previous sweep. Runs periodically
+     * while menus are registered, but can be called manually, e.g. from a debug command.
+     *
+     * @return Number of menus released
+     */
+    public static int sweep() {
+        List<InventoryBuilder> leaked = new ArrayList<>();
+
+        for (List<Session> sessions : SESSIONS.values()) {
+            for (Session session : sessions) {
+                InventoryBuilder menu = session.menu;
+                boolean stale = menu.isStale();
+                if (stale && session.suspect) leaked.add(menu);
+                session.suspect = stale;
+            }
+        }
+
+        // Released outside the loop, since releasing unregisters the session
+        for (InventoryBuilder menu : leaked) {
+            try {
+                menu.releaseStale();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        released += leaked.size();
+
+        if (SESSIONS.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+        return leaked.size();
+    }
+
+    private static final class Session {
+        private final InventoryBuilder menu;
+        private boolean suspect;
+
+        private Session(InventoryBuilder menu) {
+            this.menu = menu;
+        }
+    }
+
+    /**
+     * Counts of registered menus, by state.
+     */
+    public static final class Report {
+        private final int active;
+        private final int offline;
+        private final int closed;
+        private final long released;
+
+        private Report(int active, int offline, int closed, long released) {
+            this.active = active;
+            this.offline = offline;
+            this.closed = closed;
+            this.released = released;
+        }
+
+        /**
+         * @return Menus currently shown to their player
+         */
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * @return Menus still registered for a player who went offline
+         */
+        public int getOffline() {
+            return offline;
+        }
+
+        /**
+         * @return Menus still registered although their view was closed
+         */
+        public int getClosed() {
+            return closed;
+        }
+
+        /**
+         * @return Leaked menus released by sweeps since startup
+         */
+        public long getReleased() {
+            return released;
+        }
+
+        @Override
+        public String toString() {
+            return "MenuSessions{active=" + active + ", offline=" + offline + ", closed=" + closed + ", released=" + released + "}";
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable menu layout compiled once from a YAML/JSON definition.
+ * Rows of the {@code shape} map each character to an entry of {@code items},
+ * a space leaves the slot empty.
+ *
+ * <pre>
+ * title: "&amp;8Shop"
+ * shape:
+ *   - "#########"
+ *   - "#  a b  #"
+ *   - "#########"
+ * items:
+ *   "#": { material: BLACK_STAINED_GLASS_PANE, name: " " }
+ *   a: { material: DIAMOND, name: "&amp;bDiamond", lore: ["&amp;7Price: 100"], action: buy_diamond }
+ * </pre>
+ */
+public final class MenuTemplate {
+
+    private final String id;
+    private final String title;
+    private final int size;
+    private final ItemStack[] items;
+    private final String[] actions;
+
+    private MenuTemplate(String id, String title, int size, ItemStack[] items, String[] actions) {
+        this.id = id;
+        this.title = title;
+        this.size = size;
+        this.items = items;
+        this.actions = actions;
+    }
+
+    /**
+     * Compiles a parsed definition. Item specs are resolved and built here, once.
+     *
+     * @param id      Identifier of the menu (usually the file name)
+     * @param section The parsed definition
+     * @return The compiled template
+     * @throws IllegalArgumentException If the definition is invalid
+     */
+    public static MenuTemplate compile(String id, ConfigurationSection section) {
+        List<String> shape = section.getStringList("shape");
+        if (shape.isEmpty() || shape.size() > 6) throw new IllegalArgumentException(id + ": shape must have between 1 and 6 rows");
+
+        ConfigurationSection specs = section.getConfigurationSection("items");
+        Map<Character, ItemStack> compiled = new HashMap<>();
+        Map<Character, String> actionIds = new HashMap<>();
+
+        if (specs != null) {
+            for (String key : specs.getKeys(false)) {
+                if (key.length() != 1) throw new IllegalArgumentException(id + ": item key '" + key + "' must be a single character");
+
+                ConfigurationSection spec = specs.getConfigurationSection(key);
+                if (spec == null) throw new IllegalArgumentException(id + ": item '" + key + "' must be a section");
+
+                compiled.put(key.charAt(0), compileItem(id, key, spec));
+                if (spec.contains("action")) actionIds.put(key.charAt(0), spec.getString("action"));
+            }
+        }
+
+        int size = shape.size() * 9;
+        ItemStack[] items = new ItemStack[size];
+        String[] actions = new String[size];
+
+        for (int row = 0; row < shape.size(); row++) {
+            String line = shape.get(row);
+            if (line.length() != 9) throw new IllegalArgumentException(id + ": shape row " + (row + 1) + " must be 9 characters long");
+
+            for (int column = 0; column < 9; column++) {
+                char symbol = line.charAt(column);
+                if (symbol == ' ') continue;
+
+                ItemStack item = compiled.get(symbol);
+                if (item == null) throw new IllegalArgumentException(id + ": no item defined for '" + symbol + "'");
+
+                items[row * 9 + column] = item;
+                actions[row * 9 + column] = actionIds.get(symbol);
+            }
+        }
+
+        String title = ChatColor.translateAlternateColorCodes('&', section.getString("title", ""));
+        return new MenuTemplate(id, title, size, items, actions);
+    }
+
+    private static ItemStack compileItem(String id, String key, ConfigurationSection spec) {
+        String materialName = spec.getString("material");
+        ItemSpec item = materialName != null ? ItemSpec.find(materialName) : null;
+        if (item == null) throw new IllegalArgumentException(id + ": unknown material '" + materialName + "' for item '" + key + "'");
+
+        List<String> lore = new ArrayList<>();
+        for (String line : spec.getStringList("lore")) lore.add(ChatColor.translateAlternateColorCodes('&', line));
+
+        ItemBuilder builder = new ItemBuilder(item, ChatColor.translateAlternateColorCodes('&', spec.getString("name", " ")), spec.getInt("amount", 1));
+        if (!lore.isEmpty()) builder.setLore(lore);
+        if (spec.contains("data")) builder.setDurability((short) spec.getInt("data"));
+        return builder.build();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The compiled item of a slot, shared by every menu using this template (do not modify it)
+     */
+    public ItemStack getItem(int slot) {
+        return items[slot];
+    }
+
+    /**
+     * @return The action id of a slot, or null if the slot has no action
+     */
+    public String getAction(int slot) {
+        return actions[slot];
+    }
+}
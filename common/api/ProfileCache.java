@@ -0,0 +1,314 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking skin lookups for player heads, used by {@code ItemBuilder.setOwnerAsync}.
+ * Skins are looked up in a memory LRU, then in a compact on-disk cache, and only then resolved
+ * through a {@link ProfileSource} on a background thread. Concurrent lookups of the same player
+ * share a single request, unknown players are remembered for a short time, and leaderboard menus
+ * can {@link #prefetch} their owners before rendering. Both caches are bounded, least recently used first.
+ *
+ * <pre>
+ * ProfileCache.setDefault(new ProfileCache(source, new File(getDataFolder(), "profiles.bin"), 1000, 3, TimeUnit.DAYS));
+ * ...
+ * ProfileCache.getDefault().close(); // in onDisable
+ * </pre>
+ */
+public class ProfileCache {
+
+    // "CKPC", followed by the format version
+    private static final int MAGIC = 0x434B5043;
+    private static final int FORMAT = 1;
+
+    private static final long DEFAULT_MISS_TTL = TimeUnit.MINUTES.toMillis(1);
+    private static final int MISS_CACHE_SIZE = 1024;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static volatile ProfileCache defaultCache;
+
+    private final ProfileSource source;
+    private final File file;
+    private final long ttlMillis;
+    private final Map<UUID, SkinProfile> memory;
+    // Mirror of the on-disk cache, only what is still in it gets written by save()
+    private final Map<UUID, SkinProfile> disk;
+    private final Map<String, UUID> names;
+    // Players the source did not know, mapped to when they may be looked up again
+    private final Map<Object, Long> misses = lru(MISS_CACHE_SIZE);
+    private final Map<Object, CompletableFuture<SkinProfile>> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private volatile long missTtlMillis = DEFAULT_MISS_TTL;
+    private volatile boolean dirty;
+
+    /**
+     * Same as the full constructor, keeping up to ten times memorySize skins on disk.
+     */
+    public ProfileCache(ProfileSource source, File file, int memorySize, long ttl, TimeUnit unit) {
+        this(source, file, memorySize, memorySize * 10, ttl, unit);
+    }
+
+    /**
+     * @param source     Resolves the skins missing from the cache
+     * @param file       On-disk cache, loaded now and written by {@link #save()} (can be null)
+     * @param memorySize Maximum number of skins kept in memory
+     * @param diskSize   Maximum number of skins kept in the on-disk cache
+     * @param ttl        How long a resolved skin stays valid
+     * @param unit       Unit of the ttl
+     */
+    public ProfileCache(ProfileSource source, File file, int memorySize, int diskSize, long ttl, TimeUnit unit) {
+        this.source = source;
+        this.file = file;
+        this.ttlMillis = unit.toMillis(ttl);
+        this.memory = lru(memorySize);
+        this.disk = lru(Math.max(memorySize, diskSize));
+        this.names = lru(Math.max(memorySize, diskSize));
+        this.executor = Executors.newFixedThreadPool(2, task -> {
+            Thread thread = new Thread(task, "CraftKit-Profile-Lookup-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (file != null && file.isFile()) load();
+    }
+
+    private static <K, V> Map<K, V> lru(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Sets the cache used by {@code ItemBuilder.setOwnerAsync}.
+     */
+    public static void setDefault(ProfileCache cache) {
+        defaultCache = cache;
+    }
+
+    /**
+     * Sets how long an unknown player is answered with null before the source is asked again. Defaults to one minute.
+     */
+    public void setMissTtl(long ttl, TimeUnit unit) {
+        this.missTtlMillis = unit.toMillis(ttl);
+    }
+
+    public static ProfileCache getDefault() {
+        if (defaultCache == null) throw new IllegalStateException("No default ProfileCache, call ProfileCache.setDefault() first");
+        return defaultCache;
+    }
+
+    /**
+     * @param id UUID of the player
+     * @return Future of the skin, already completed on a cache hit. Completes with null for unknown players.
+     */
+    public CompletableFuture<SkinProfile> get(UUID id) {
+        SkinProfile cached = lookup(id);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        if (isMiss(id)) return CompletableFuture.completedFuture(null);
+        return resolve(id, () -> source.fetch(id));
+    }
+
+    /**
+     * @param name Name of the player, case insensitive
+     * @return Future of the skin, already completed on a cache hit. Completes with null for unknown players.
+     */
+    public CompletableFuture<SkinProfile> get(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        UUID id = names.get(key);
+        SkinProfile cached = id != null ? lookup(id) : null;
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        if (isMiss(key)) return CompletableFuture.completedFuture(null);
+        return resolve(key, () -> source.fetch(name));
+    }
+
+    /**
+     * @return The cached skin, or null if it is unknown or expired. Never blocks.
+     */
+    public SkinProfile getIfPresent(UUID id) {
+        return lookup(id);
+    }
+
+    /**
+     * Resolves every missing skin in the background, meant to be called before rendering
+     * a menu full of heads. Failed lookups are ignored.
+     *
+     * @param ids UUIDs of the players
+     * @return Future completed once every lookup is done
+     */
+    public CompletableFuture<Void> prefetch(Collection<UUID> ids) {
+        List<CompletableFuture<SkinProfile>> lookups = new ArrayList<>(ids.size());
+        for (UUID id : ids) lookups.add(get(id).exceptionally(error -> null));
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Drops a skin, e.g. after the player changed it.
+     */
+    public void invalidate(UUID id) {
+        memory.remove(id);
+        misses.remove(id);
+        if (disk.remove(id) != null) dirty = true;
+    }
+
+    /**
+     * Writes the skins that are still valid to the on-disk cache, if anything changed.
+     * The file is replaced atomically, so a crash never leaves it half written.
+     */
+    public synchronized void save() {
+        if (file == null || !dirty) return;
+        dirty = false;
+
+        List<SkinProfile> profiles;
+        synchronized (disk) {
+            disk.values().removeIf(profile -> profile.isExpired(ttlMillis));
+            profiles = new ArrayList<>(disk.values());
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            if (file.getParentFile() != null) file.getParentFile().mkdirs();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(profiles.size());
+                for (SkinProfile profile : profiles) {
+                    out.writeLong(profile.getId().getMostSignificantBits());
+                    out.writeLong(profile.getId().getLeastSignificantBits());
+                    out.writeLong(profile.getFetchedAt());
+                    writeNullable(out, profile.getName());
+                    writeNullable(out, profile.getTexture());
+                    writeNullable(out, profile.getSignature());
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            JavaPlugin.getProvidingPlugin(ProfileCache.class).getLogger().warning("Could not save profile cache " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the cache and stops its lookup threads, meant to be called in onDisable.
+     * Lookups still running are abandoned.
+     */
+    public void close() {
+        executor.shutdownNow();
+        save();
+    }
+
+    /**
+     * @return Number of skins kept in memory
+     */
+    public int size() {
+        return memory.size();
+    }
+
+    private SkinProfile lookup(UUID id) {
+        SkinProfile profile = memory.get(id);
+        if (profile == null) {
+            profile = disk.get(id);
+            if (profile == null) return null;
+            if (!profile.isExpired(ttlMillis)) memory.put(id, profile);
+        }
+
+        if (profile.isExpired(ttlMillis)) {
+            invalidate(id);
+            return null;
+        }
+        return profile;
+    }
+
+    private CompletableFuture<SkinProfile> resolve(Object key, Callable<SkinProfile> fetch) {
+        CompletableFuture<SkinProfile> future = new CompletableFuture<>();
+        CompletableFuture<SkinProfile> existing = pending.putIfAbsent(key, future);
+        if (existing != null) return existing;
+
+        executor.execute(() -> {
+            try {
+                SkinProfile profile = fetch.call();
+                if (profile != null) store(profile);
+                else misses.put(key, System.currentTimeMillis() + missTtlMillis);
+                future.complete(profile);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                pending.remove(key, future);
+            }
+        });
+        return future;
+    }
+
+    private boolean isMiss(Object key) {
+        Long retryAt = misses.get(key);
+        if (retryAt == null) return false;
+        if (System.currentTimeMillis() < retryAt) return true;
+
+        misses.remove(key);
+        return false;
+    }
+
+    private void store(SkinProfile profile) {
+        memory.put(profile.getId(), profile);
+        disk.put(profile.getId(), profile);
+        if (profile.getName() != null) names.put(profile.getName().toLowerCase(Locale.ROOT), profile.getId());
+        dirty = true;
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) throw new IOException("unknown format");
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                long fetchedAt = in.readLong();
+                SkinProfile profile = new SkinProfile(id, readNullable(in), readNullable(in), readNullable(in), fetchedAt);
+                if (profile.isExpired(ttlMillis)) continue;
+
+                disk.put(id, profile);
+                if (profile.getName() != null) names.put(profile.getName().toLowerCase(Locale.ROOT), id);
+            }
+        } catch (IOException e) {
+            JavaPlugin.getProvidingPlugin(ProfileCache.class).getLogger().warning("Could not load profile cache " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
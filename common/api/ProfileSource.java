@@ -0,0 +1,22 @@
+package fr.arnaud.craftkit.api;
+
+import java.util.UUID;
+
+/**
+ * Where {@link ProfileCache} resolves the skins it doesn't know yet (Mojang API, a proxy,
+ * a database, ...). Lookups are always called off the main thread and may block.
+ */
+public interface ProfileSource {
+
+    /**
+     * @param id UUID of the player
+     * @return The resolved skin, or null if the player is unknown
+     */
+    SkinProfile fetch(UUID id) throws Exception;
+
+    /**
+     * @param name Name of the player, case insensitive
+     * @return The resolved skin, or null if the player is unknown
+     */
+    SkinProfile fetch(String name) throws Exception;
+}
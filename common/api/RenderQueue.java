@@ -0,0 +1,147 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-sliced scheduler for menu renders.
+ * Renders are processed under a per-tick budget (5 ms by default), so a burst of heavy
+ * menu opens is spread over several ticks instead of spiking MSPT. Updates of menus that
+ * are already open go first, then pending opens are served round-robin, one per player.
+ * Must only be used from the main thread.
+ */
+public final class RenderQueue {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final ArrayDeque<Runnable> PRIORITY = new ArrayDeque<>();
+    private static final LinkedHashMap<UUID, ArrayDeque<Runnable>> PENDING = new LinkedHashMap<>();
+
+    private static long budgetNanos = TimeUnit.MILLISECONDS.toNanos(5);
+    // Render time used in the current tick, reset by every tick() and, without a running task, after 50 ms
+    private static long windowStart;
+    private static long windowUsed;
+    private static BukkitTask task;
+
+    private RenderQueue() {
+    }
+
+    /**
+     * Queues a render, it runs on a later tick once the budget allows it.
+     *
+     * @param player Player the render is for, used for fair ordering
+     * @param render The render to run on the main thread
+     */
+    public static void submit(UUID player, Runnable render) {
+        PENDING.computeIfAbsent(player, uuid -> new ArrayDeque<>()).add(render);
+        start();
+    }
+
+    /**
+     * Queues an update of a menu that is already open. These run before any pending open.
+     *
+     * @param render The render to run on the main thread
+     */
+    public static void submitPriority(Runnable render) {
+        PRIORITY.add(render);
+        start();
+    }
+
+    /**
+     * Runs a render right away if the budget of the current tick allows it, queues it otherwise.
+     *
+     * @param player Player the render is for, used for fair ordering
+     * @param render The render to run on the main thread
+     */
+    public static void run(UUID player, Runnable render) {
+        if (PENDING.isEmpty() && PRIORITY.isEmpty() && remainingBudget() > 0) {
+            execute(render);
+        } else {
+            submit(player, render);
+        }
+    }
+
+    /**
+     * Sets the time renders may use per tick.
+     *
+     * @param millis Budget in milliseconds
+     */
+    public static void setBudget(double millis) {
+        budgetNanos = (long) (millis * 1_000_000L);
+    }
+
+    /**
+     * @return Number of renders waiting for a tick
+     */
+    public static int size() {
+        int count = PRIORITY.size();
+        for (ArrayDeque<Runnable> queue : PENDING.values()) count += queue.size();
+        return count;
+    }
+
+    private static void start() {
+        if (task != null) return;
+        task = Bukkit.getScheduler().runTaskTimer(JavaPlugin.getProvidingPlugin(RenderQueue.class), RenderQueue::tick, 1L, 1L);
+    }
+
+    private static void tick() {
+        // Each tick gets its whole budget, whatever a late or busy previous tick used
+        windowStart = System.nanoTime();
+        windowUsed = 0;
+
+        // At least one render runs every tick, so a single heavy menu can't starve the queue
+        boolean first = true;
+
+        while (!PRIORITY.isEmpty() && (first || remainingBudget() > 0)) {
+            execute(PRIORITY.poll());
+            first = false;
+        }
+
+        while (!PENDING.isEmpty() && (first || remainingBudget() > 0)) {
+            Iterator<Map.Entry<UUID, ArrayDeque<Runnable>>> it = PENDING.entrySet().iterator();
+            Map.Entry<UUID, ArrayDeque<Runnable>> next = it.next();
+            it.remove();
+
+            Runnable render = next.getValue().poll();
+            // Moves the player to the back of the line if they still have renders waiting
+            if (!next.getValue().isEmpty()) PENDING.put(next.getKey(), next.getValue());
+
+            execute(render);
+            first = false;
+        }
+
+        if (PRIORITY.isEmpty() && PENDING.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static void execute(Runnable render) {
+        long start = System.nanoTime();
+        try {
+            render.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            long now = System.nanoTime();
+            if (now - windowStart > TICK_NANOS) {
+                windowStart = start;
+                windowUsed = 0;
+            }
+            windowUsed += now - start;
+        }
+    }
+
+    private static long remainingBudget() {
+        if (System.nanoTime() - windowStart > TICK_NANOS) return budgetNanos;
+        return budgetNanos - windowUsed;
+    }
+}
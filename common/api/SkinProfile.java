@@ -0,0 +1,55 @@
+package fr.arnaud.craftkit.api;
+
+import java.util.UUID;
+
+/**
+ * Resolved skin of a player: everything needed to render their head, without a GameProfile
+ * so it stays independent of the server version.
+ */
+public final class SkinProfile {
+
+    private final UUID id;
+    private final String name;
+    private final String texture;
+    private final String signature;
+    private final long fetchedAt;
+
+    /**
+     * @param id        UUID of the player
+     * @param name      Name of the player
+     * @param texture   Base64 "textures" property value
+     * @param signature Signature of the texture (can be null)
+     * @param fetchedAt Time of the lookup, in epoch milliseconds
+     */
+    public SkinProfile(UUID id, String name, String texture, String signature, long fetchedAt) {
+        this.id = id;
+        this.name = name;
+        this.texture = texture;
+        this.signature = signature;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTexture() {
+        return texture;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    boolean isExpired(long ttlMillis) {
+        return System.currentTimeMillis() - fetchedAt > ttlMillis;
+    }
+}
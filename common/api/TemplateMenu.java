@@ -0,0 +1,79 @@
+package fr.arnaud.craftkit.api;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Menu rendered from a {@link MenuTemplate}. Action ids of the template are bound to handlers in code,
+ * so designers can move items around without a rebuild.
+ *
+ * <pre>
+ * Map&lt;String, Consumer&lt;InventoryClickEvent&gt;&gt; handlers = new HashMap&lt;&gt;();
+ * handlers.put("buy_diamond", event -&gt; buy(player, Material.DIAMOND));
+ * new TemplateMenu(player, layouts, "shop", handlers).open();
+ * </pre>
+ */
+public class TemplateMenu extends InventoryBuilder {
+
+    private final MenuLayouts layouts;
+    private final String id;
+    private final Map<String, Consumer<InventoryClickEvent>> handlers;
+    private MenuTemplate template;
+
+    /**
+     * @param player   The player who will see the menu.
+     * @param layouts  Registry the template is taken from.
+     * @param id       Id of the layout.
+     * @param handlers Click handlers by action id.
+     */
+    public TemplateMenu(Player player, MenuLayouts layouts, String id, Map<String, Consumer<InventoryClickEvent>> handlers) {
+        this(player, layouts, id, requireTemplate(layouts, id), handlers);
+    }
+
+    private TemplateMenu(Player player, MenuLayouts layouts, String id, MenuTemplate template, Map<String, Consumer<InventoryClickEvent>> handlers) {
+        super(player, template.getTitle(), null, template.getSize());
+        this.layouts = layouts;
+        this.id = id;
+        this.template = template;
+        this.handlers = handlers;
+    }
+
+    @Override
+    public void createItems(Player player, Inventory inventory) {
+        for (int slot = 0; slot < template.getSize(); slot++) {
+            if (template.getItem(slot) == null) continue;
+
+            String action = template.getAction(slot);
+            addItem(slot, template.getItem(slot), action != null ? handlers.get(action) : null);
+        }
+    }
+
+    /**
+     * A retained menu picks up the latest template when it is reopened, as long as its size did not change.
+     * Only a reloaded template triggers a full render.
+     */
+    @Override
+    protected void onReopen(Player player, Inventory inventory) {
+        MenuTemplate latest = layouts.get(id);
+        if (latest != null && latest != template && latest.getSize() == template.getSize()) {
+            template = latest;
+            refresh();
+            return;
+        }
+        super.onReopen(player, inventory);
+    }
+
+    public MenuTemplate getTemplate() {
+        return template;
+    }
+
+    private static MenuTemplate requireTemplate(MenuLayouts layouts, String id) {
+        MenuTemplate template = layouts.get(id);
+        if (template == null) throw new IllegalArgumentException("Unknown menu layout: " + id);
+        return template;
+    }
+}